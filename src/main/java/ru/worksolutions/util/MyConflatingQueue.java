@@ -0,0 +1,128 @@
+package ru.worksolutions.util;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * A {@link MyQueue} that keeps only the latest value per key, e.g. for price or status feeds.
+ * <p>
+ * Every key takes at most one slot of the ring. Adding a value whose key is already in the
+ * queue replaces the old value in place, keeping its position; a value of a new key is
+ * appended. So the queue never holds more elements than there are distinct keys, however
+ * fast the updates come, and a consumer never sees a value that has already been superseded.
+ * <p>
+ * The keys are looked up in a {@link MyKeyIndex} that maps them to the sequence numbers of
+ * their slots. Sequence numbers do not change when the buffer grows or wraps, so adding and
+ * polling are O(1). Removing from the middle of the queue rebuilds the index in O(n).
+ * The key extractor must return equal keys for the same element every time it is called.
+ * {@code null} elements are not permitted.
+ *
+ * @param <K> the type of keys
+ * @param <E> the type of elements held in this queue
+ */
+@SuppressWarnings({"unchecked", "WeakerAccess"})
+public class MyConflatingQueue<K, E> extends MyQueue<E> {
+
+    final Function<? super E, ? extends K> keyExtractor;
+    // the sequence numbers of the slots of the keys in the queue
+    final MyKeyIndex<K> index = new MyKeyIndex<>();
+    // the sequence number of the head, the one of the tail is headSequence + count - 1
+    long headSequence;
+    // the number of values that have replaced older ones
+    long conflated;
+
+    public MyConflatingQueue(Function<? super E, ? extends K> keyExtractor) {
+        this(STARTING_CAPACITY_BY_DEFAULT, CALC_NEW_CAPACITY_BY_DEFAULT, keyExtractor);
+    }
+
+    public MyConflatingQueue(int startingCapacity, Function<? super E, ? extends K> keyExtractor) {
+        this(startingCapacity, CALC_NEW_CAPACITY_BY_DEFAULT, keyExtractor);
+    }
+
+    public MyConflatingQueue(int startingCapacity, IntUnaryOperator calcNewCapacity,
+                             Function<? super E, ? extends K> keyExtractor) {
+        super(startingCapacity, calcNewCapacity);
+        this.keyExtractor = Objects.requireNonNull(keyExtractor);
+    }
+
+    /**
+     * Returns the number of values that have replaced an older value of the same key
+     * instead of being appended.
+     *
+     * @return the number of conflated values
+     */
+    public long getConflatedCount() {
+        return conflated;
+    }
+
+    private int indexInBuffer(long sequence) {
+        int index = indexToGet + (int) (sequence - headSequence);
+        return index >= buffer.length ? index - buffer.length : index;
+    }
+
+    /**
+     * Replaces the queued value of the same key, keeping its position in the queue,
+     * or appends the value if its key is not in the queue.
+     *
+     * @param e the element to add
+     * @return {@code true}
+     * @throws NullPointerException if the specified element is null
+     */
+    @Override
+    public boolean add(E e) {
+        Objects.requireNonNull(e);
+        K key = keyExtractor.apply(e);
+        long sequence = index.get(key);
+        if (sequence != MyKeyIndex.ABSENT) {
+            buffer[indexInBuffer(sequence)] = e;
+            conflated++;
+            return true;
+        }
+        index.put(key, headSequence + count);
+        super.add(e);
+        return true;
+    }
+
+    @Override
+    public E remove() {
+        E e = super.remove();
+        index.remove(keyExtractor.apply(e));
+        headSequence++;
+        return e;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return reindexIf(super.remove(o));
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        return reindexIf(super.removeAll(c));
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        return reindexIf(super.retainAll(c));
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        index.clear();
+        headSequence = 0;
+    }
+
+    // elements have been shifted in the buffer, so their sequence numbers are renumbered from the head
+    private boolean reindexIf(boolean changed) {
+        if (changed) {
+            index.clear();
+            headSequence = 0;
+            for (int i = 0; i < count; i++)
+                index.put(keyExtractor.apply((E) buffer[indexInBuffer(i)]), i);
+        }
+        return changed;
+    }
+}
@@ -0,0 +1,182 @@
+package ru.worksolutions.util;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.IntUnaryOperator;
+import java.util.function.LongSupplier;
+
+/**
+ * A {@link MyQueue} whose elements expire a fixed time after they were added.
+ * <p>
+ * Every element is stamped with the clock on {@link #add}. Since the queue is FIFO
+ * the stamps grow from the head to the tail, so all expired elements form a single
+ * run at the head of the queue. That run is evicted lazily on adding, polling,
+ * peeking, iterating and asking for the size: the stamps are checked from the head
+ * and the check stops at the first live element, then the whole run is skipped by
+ * moving the head index. Each element is thus checked once when it expires, which
+ * makes the eviction O(1) amortized.
+ * <p>
+ * An optional callback receives every evicted run as one batch, after the queue has
+ * been updated. The clock returns nanoseconds, must be monotonic and is
+ * {@link System#nanoTime()} by default; tests can inject their own.
+ *
+ * @param <E> the type of elements held in this queue
+ */
+@SuppressWarnings({"unchecked", "WeakerAccess"})
+public class MyExpiringQueue<E> extends MyStampedQueue<E> {
+
+    private static final LongSupplier CLOCK_BY_DEFAULT = System::nanoTime;
+
+    final long ttlNanos;
+    final LongSupplier clock;
+    final Consumer<? super List<E>> onExpired;
+
+    public MyExpiringQueue(long ttl, TimeUnit unit) {
+        this(ttl, unit, null);
+    }
+
+    public MyExpiringQueue(long ttl, TimeUnit unit, Consumer<? super List<E>> onExpired) {
+        this(STARTING_CAPACITY_BY_DEFAULT, CALC_NEW_CAPACITY_BY_DEFAULT, ttl, unit, CLOCK_BY_DEFAULT, onExpired);
+    }
+
+    public MyExpiringQueue(int startingCapacity, IntUnaryOperator calcNewCapacity, long ttl, TimeUnit unit,
+                           LongSupplier clock, Consumer<? super List<E>> onExpired) {
+        super(startingCapacity, calcNewCapacity);
+        if (ttl <= 0)
+            throw new IllegalArgumentException();
+        this.ttlNanos = unit.toNanos(ttl);
+        this.clock = Objects.requireNonNull(clock);
+        this.onExpired = onExpired;
+    }
+
+    /**
+     * Removes the expired elements from the head of this queue and hands them
+     * to the expiry callback if there is one. It is called by the other methods
+     * of this queue, so calling it explicitly is only needed to release the
+     * expired elements early: their slots in the buffer are cleared, so they
+     * can be garbage collected.
+     *
+     * @return the number of evicted elements
+     */
+    public int evictExpired() {
+        return evictExpired(clock.getAsLong());
+    }
+
+    private int evictExpired(long now) {
+        int expired = 0;
+        int index = indexToGet;
+        // the stamps are monotonic, so the first live element ends the run
+        while (expired < count && now - stamps[index] >= ttlNanos) {
+            expired++;
+            index++;
+            if (index == buffer.length) index = 0;
+        }
+        if (expired == 0) return 0;
+        List<E> batch = onExpired == null ? null : copyOfHead(expired);
+        clearRing(buffer, indexToGet, expired);
+        indexToGet = index;
+        count -= expired;
+        if (batch != null) onExpired.accept(batch);
+        return expired;
+    }
+
+    private List<E> copyOfHead(int length) {
+        Object[] array = new Object[length];
+        copyRing(buffer, buffer.length, indexToGet, length, array);
+        return (List<E>) Arrays.asList(array);
+    }
+
+    @Override
+    public boolean add(E e) {
+        long now = clock.getAsLong();
+        evictExpired(now);
+        add(e, now);
+        return true;
+    }
+
+    @Override
+    public int size() {
+        evictExpired();
+        return count;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        evictExpired();
+        return count == 0;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        evictExpired();
+        return super.contains(o);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        evictExpired();
+        return super.remove(o);
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        evictExpired();
+        return super.removeAll(c);
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        evictExpired();
+        return super.retainAll(c);
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        evictExpired();
+        return super.iterator();
+    }
+
+    @Override
+    public Object[] toArray() {
+        evictExpired();
+        return super.toArray();
+    }
+
+    @Override
+    public <T> T[] toArray(T[] a) {
+        evictExpired();
+        return super.toArray(a);
+    }
+
+    @Override
+    public E remove() {
+        evictExpired();
+        return super.remove();
+    }
+
+    @Override
+    public E poll() {
+        evictExpired();
+        if (count == 0) return null;
+        return super.remove();
+    }
+
+    @Override
+    public E element() {
+        evictExpired();
+        return super.element();
+    }
+
+    @Override
+    public E peek() {
+        evictExpired();
+        return super.peek();
+    }
+
+    @Override
+    public String toString() {
+        evictExpired();
+        return super.toString();
+    }
+}
@@ -0,0 +1,252 @@
+package ru.worksolutions.util;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * A queue that shares its output fairly between keys, e.g. tenants.
+ * <p>
+ * Every element is routed by the key extractor into a {@link MyQueue} of its own key, and
+ * {@link #poll()} serves the keys that have elements with deficit round-robin: on its turn a
+ * key gets as many elements polled as its weight, then it goes to the back of the round.
+ * So a key with a lot of elements cannot starve the others, and a key of weight 2 gets twice
+ * as many elements as a key of weight 1 while both have some. Within a key the order is FIFO.
+ * <p>
+ * Adding, polling and the per-key size are O(1) regardless of the number of keys. Only the keys
+ * that have elements are kept: a sub-queue that becomes empty is forgotten and recycled to
+ * a bounded pool for the next new key. Removing an element by value looks up the sub-queue of its
+ * key and scans only that one. {@code null} elements are not permitted.
+ *
+ * @param <K> the type of keys
+ * @param <E> the type of elements held in this queue
+ */
+@SuppressWarnings("WeakerAccess")
+public class MyFairQueue<K, E> extends AbstractQueue<E> {
+
+    private static final ToIntFunction<Object> WEIGHTS_BY_DEFAULT = k -> 1;
+    static final int SUB_QUEUE_CAPACITY_BY_DEFAULT = 16;
+    static final int MAX_POOLED_BY_DEFAULT = 1024;
+    // sub-queues that have grown beyond this are not pooled, so one burst does not pin a big buffer
+    static final int MAX_POOLED_BUFFER = 1024;
+
+    final Function<? super E, ? extends K> keyExtractor;
+    final ToIntFunction<? super K> weights;
+    final int subQueueCapacity;
+    final int maxPooled;
+    // the sub-queues that have elements, by key
+    final Map<K, SubQueue<K, E>> subQueues = new HashMap<>();
+    // the same sub-queues in the order of the round, the head is the one whose turn it is
+    final MyQueue<SubQueue<K, E>> round = new MyQueue<>();
+    final MyQueue<MyQueue<E>> pool = new MyQueue<>();
+    int count;
+
+    public MyFairQueue(Function<? super E, ? extends K> keyExtractor) {
+        this(keyExtractor, WEIGHTS_BY_DEFAULT);
+    }
+
+    public MyFairQueue(Function<? super E, ? extends K> keyExtractor, ToIntFunction<? super K> weights) {
+        this(keyExtractor, weights, SUB_QUEUE_CAPACITY_BY_DEFAULT, MAX_POOLED_BY_DEFAULT);
+    }
+
+    public MyFairQueue(Function<? super E, ? extends K> keyExtractor, ToIntFunction<? super K> weights,
+                       int subQueueCapacity, int maxPooled) {
+        if (subQueueCapacity <= 0 || maxPooled < 0)
+            throw new IllegalArgumentException();
+        this.keyExtractor = Objects.requireNonNull(keyExtractor);
+        this.weights = Objects.requireNonNull(weights);
+        this.subQueueCapacity = subQueueCapacity;
+        this.maxPooled = maxPooled;
+    }
+
+    static final class SubQueue<K, E> {
+        final K key;
+        final int weight;
+        final MyQueue<E> queue;
+        // how many more elements this key may give on its current turn
+        int deficit;
+
+        SubQueue(K key, int weight, MyQueue<E> queue) {
+            this.key = key;
+            this.weight = weight;
+            this.queue = queue;
+        }
+    }
+
+    public int size() {
+        return count;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * Returns the number of elements of the given key in this queue.
+     *
+     * @param key the key
+     * @return the number of elements of the key
+     */
+    public int size(K key) {
+        SubQueue<K, E> subQueue = subQueues.get(key);
+        return subQueue == null ? 0 : subQueue.queue.count;
+    }
+
+    /**
+     * Returns the number of keys that have elements in this queue.
+     *
+     * @return the number of active keys
+     */
+    public int activeKeys() {
+        return round.count;
+    }
+
+    /**
+     * Inserts the specified element into the sub-queue of its key.
+     *
+     * @param e the element to add
+     * @return {@code true}
+     * @throws NullPointerException     if the specified element is null
+     * @throws IllegalArgumentException if the weight of a new key is not positive
+     */
+    public boolean offer(E e) {
+        Objects.requireNonNull(e);
+        K key = keyExtractor.apply(e);
+        SubQueue<K, E> subQueue = subQueues.get(key);
+        if (subQueue == null) {
+            int weight = weights.applyAsInt(key);
+            if (weight <= 0)
+                throw new IllegalArgumentException("weight of " + key + " is " + weight);
+            subQueue = new SubQueue<>(key, weight, acquire());
+            subQueues.put(key, subQueue);
+            round.add(subQueue);
+        }
+        subQueue.queue.add(e);
+        count++;
+        return true;
+    }
+
+    /**
+     * Retrieves and removes the next element in deficit round-robin order,
+     * or returns {@code null} if this queue is empty.
+     *
+     * @return the next element, or {@code null} if this queue is empty
+     */
+    public E poll() {
+        if (count == 0) return null;
+        SubQueue<K, E> subQueue = round.peek();
+        // the start of its turn
+        if (subQueue.deficit == 0) subQueue.deficit = subQueue.weight;
+        E e = subQueue.queue.remove();
+        subQueue.deficit--;
+        count--;
+        if (subQueue.queue.count == 0) {
+            round.remove();
+            subQueues.remove(subQueue.key);
+            release(subQueue.queue);
+        } else if (subQueue.deficit == 0) {
+            // the turn is over, to the back of the round
+            round.add(round.remove());
+        }
+        return e;
+    }
+
+    /**
+     * Retrieves, but does not remove, the element {@link #poll()} would return,
+     * or returns {@code null} if this queue is empty.
+     *
+     * @return the next element, or {@code null} if this queue is empty
+     */
+    public E peek() {
+        if (count == 0) return null;
+        return round.peek().queue.peek();
+    }
+
+    /**
+     * Removes a single instance of the specified element from the sub-queue of its key,
+     * if it is present. A key whose sub-queue becomes empty leaves the round.
+     *
+     * @param o element to be removed from this queue, if present
+     * @return {@code true} if an element was removed as a result of this call
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean remove(Object o) {
+        if (o == null) return false;
+        K key;
+        try {
+            key = keyExtractor.apply((E) o);
+        } catch (ClassCastException e) {
+            return false;
+        }
+        SubQueue<K, E> subQueue = subQueues.get(key);
+        if (subQueue == null || !subQueue.queue.remove(o))
+            return false;
+        count--;
+        if (subQueue.queue.count == 0) {
+            round.remove(subQueue);
+            subQueues.remove(subQueue.key);
+            release(subQueue.queue);
+        }
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        for (SubQueue<K, E> subQueue : round)
+            release(subQueue.queue);
+        round.clear();
+        subQueues.clear();
+        count = 0;
+    }
+
+    /**
+     * Returns an iterator over the elements in this queue, key by key. It does not
+     * follow the order of {@link #poll()}.
+     *
+     * @return an iterator over the elements in this queue
+     */
+    public Iterator<E> iterator() {
+        return new MyFairQueueIterator();
+    }
+
+    private MyQueue<E> acquire() {
+        return pool.count == 0 ? new MyQueue<>(subQueueCapacity) : pool.remove();
+    }
+
+    private void release(MyQueue<E> queue) {
+        queue.clear();
+        if (pool.count < maxPooled && queue.buffer.length <= MAX_POOLED_BUFFER)
+            pool.add(queue);
+    }
+
+    private class MyFairQueueIterator implements Iterator<E> {
+        final Iterator<SubQueue<K, E>> subQueuesIterator = round.iterator();
+        SubQueue<K, E> subQueue;
+        Iterator<E> elementsIterator = Collections.emptyIterator();
+
+        // every sub-queue in the round has elements, so there is no need to look ahead
+        public boolean hasNext() {
+            return elementsIterator.hasNext() || subQueuesIterator.hasNext();
+        }
+
+        public E next() {
+            if (!elementsIterator.hasNext()) {
+                subQueue = subQueuesIterator.next();
+                elementsIterator = subQueue.queue.iterator();
+            }
+            return elementsIterator.next();
+        }
+
+        public void remove() {
+            elementsIterator.remove();
+            count--;
+            if (subQueue.queue.count == 0) {
+                subQueuesIterator.remove();
+                subQueues.remove(subQueue.key);
+                release(subQueue.queue);
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package ru.worksolutions.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of non-negative {@code long} values in the spirit of HdrHistogram.
+ * <p>
+ * Values below {@code SUB_BUCKETS} are counted exactly. Every higher power of two is split
+ * into {@code SUB_BUCKETS} linear sub-buckets, so a value is reported with a relative error
+ * of at most 1 / {@code SUB_BUCKETS} (about 3%). Recording is O(1): one atomic increment of
+ * a bucket, plus a compare-and-set when the value is a new maximum. The buckets are a fixed
+ * {@link AtomicLongArray} of about two thousand counters, and the total count is summed from
+ * them when it is read, so reading is the slow side. Readers see a weakly consistent view
+ * while values are being recorded.
+ */
+@SuppressWarnings("WeakerAccess")
+public class MyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // values up to SUB_BUCKETS - 1, then one group per exponent from SUB_BUCKET_BITS to 62
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a value, negative values are recorded as zero.
+     *
+     * @param value the value to record
+     */
+    public void record(long value) {
+        if (value < 0) value = 0;
+        counts.incrementAndGet(indexOf(value));
+        long currentMax = max.get();
+        while (value > currentMax && !max.compareAndSet(currentMax, value))
+            currentMax = max.get();
+    }
+
+    public long getTotalCount() {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++)
+            total += counts.get(i);
+        return total;
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Returns the highest value that is equivalent, within the precision of this histogram,
+     * to the value below which the given percentage of the recorded values falls.
+     *
+     * @param percentile the percentile, from 0 to 100
+     * @return the value at the percentile, or 0 if nothing has been recorded
+     * @throws IllegalArgumentException if the percentile is out of range
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100)
+            throw new IllegalArgumentException();
+        long total = getTotalCount();
+        if (total == 0) return 0;
+        long countToReach = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long reached = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            reached += counts.get(i);
+            if (reached >= countToReach)
+                return Math.min(highestValueOf(i), max.get());
+        }
+        // values recorded concurrently with this loop
+        return max.get();
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++)
+            counts.set(i, 0);
+        max.set(0);
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS)
+            return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long highestValueOf(int index) {
+        if (index < SUB_BUCKETS)
+            return index;
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int subBucket = index % SUB_BUCKETS;
+        int shift = exponent - SUB_BUCKET_BITS;
+        long lowest = (long) (SUB_BUCKETS + subBucket) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
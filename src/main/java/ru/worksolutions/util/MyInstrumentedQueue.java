@@ -0,0 +1,136 @@
+package ru.worksolutions.util;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * A {@link MyQueue} that reports what happens to it into {@link MyQueueMetrics}: the number
+ * of adds, polls and resizes, the bytes copied when growing, the high watermark of the size,
+ * the latencies of {@link #add} and {@link #remove()} and the time the elements spend in the
+ * queue. Resizes and scans over large queues are also emitted as JDK Flight Recorder events,
+ * see {@link MyQueueEvents}.
+ * <p>
+ * Instrumentation lives in this subclass only, so a plain {@link MyQueue} pays nothing for it;
+ * switching it off means constructing a {@link MyQueue} instead.
+ *
+ * @param <E> the type of elements held in this queue
+ */
+@SuppressWarnings("WeakerAccess")
+public class MyInstrumentedQueue<E> extends MyStampedQueue<E> {
+
+    // bytes per element of an Object[], 4 with compressed oops, otherwise 8
+    static final int BYTES_PER_REFERENCE = referenceSize();
+
+    final MyQueueMetrics metrics;
+
+    public MyInstrumentedQueue(MyQueueMetrics metrics) {
+        this(STARTING_CAPACITY_BY_DEFAULT, CALC_NEW_CAPACITY_BY_DEFAULT, metrics);
+    }
+
+    public MyInstrumentedQueue(int startingCapacity, MyQueueMetrics metrics) {
+        this(startingCapacity, CALC_NEW_CAPACITY_BY_DEFAULT, metrics);
+    }
+
+    public MyInstrumentedQueue(int startingCapacity, IntUnaryOperator calcNewCapacity, MyQueueMetrics metrics) {
+        super(startingCapacity, calcNewCapacity);
+        this.metrics = Objects.requireNonNull(metrics);
+    }
+
+    public MyQueueMetrics getMetrics() {
+        return metrics;
+    }
+
+    private static int referenceSize() {
+        try {
+            return Class.forName("sun.misc.Unsafe").getField("ARRAY_OBJECT_INDEX_SCALE").getInt(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return 8;
+        }
+    }
+
+    @Override
+    void grow() {
+        MyQueueEvents.Resize event = new MyQueueEvents.Resize();
+        event.begin();
+        int oldLength = buffer.length;
+        super.grow();
+        // only what a plain MyQueue would copy, the stamps are the cost of the instrumentation itself
+        long bytes = (long) count * BYTES_PER_REFERENCE;
+        metrics.onResize(bytes);
+        if (event.shouldCommit()) {
+            event.oldCapacity = oldLength;
+            event.newCapacity = buffer.length;
+            event.elementsCopied = count;
+            event.bytesCopied = bytes;
+            event.commit();
+        }
+    }
+
+    @Override
+    public boolean add(E e) {
+        long start = System.nanoTime();
+        add(e, start);
+        metrics.onAdd(System.nanoTime() - start, count);
+        return true;
+    }
+
+    @Override
+    public E remove() {
+        long start = System.nanoTime();
+        long stamp = count == 0 ? 0 : stamps[indexToGet];
+        E e = super.remove();
+        long end = System.nanoTime();
+        metrics.onPoll(end - start, end - stamp);
+        return e;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        MyQueueEvents.Scan event = beginScan();
+        boolean result = super.contains(o);
+        commitScan(event, "contains");
+        return result;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        MyQueueEvents.Scan event = beginScan();
+        boolean result = super.remove(o);
+        commitScan(event, "remove");
+        return result;
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        MyQueueEvents.Scan event = beginScan();
+        boolean result = super.removeAll(c);
+        commitScan(event, "removeAll");
+        return result;
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        MyQueueEvents.Scan event = beginScan();
+        boolean result = super.retainAll(c);
+        commitScan(event, "retainAll");
+        return result;
+    }
+
+    // returns null for small scans, so they do not even allocate an event
+    private MyQueueEvents.Scan beginScan() {
+        if (count < metrics.scanThreshold)
+            return null;
+        MyQueueEvents.Scan event = new MyQueueEvents.Scan();
+        event.size = count;
+        event.begin();
+        return event;
+    }
+
+    private static void commitScan(MyQueueEvents.Scan event, String operation) {
+        if (event != null && event.shouldCommit()) {
+            event.operation = operation;
+            event.commit();
+        }
+    }
+}
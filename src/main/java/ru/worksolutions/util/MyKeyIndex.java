@@ -0,0 +1,129 @@
+package ru.worksolutions.util;
+
+import java.util.Arrays;
+
+/**
+ * An open-addressing hash map from keys to {@code long} values with linear probing.
+ * <p>
+ * Keys, their hash codes and values are kept in three parallel arrays, so there are no
+ * entry objects and no boxing, and a probe compares cached hash codes before calling
+ * {@code equals}. Removal shifts the following entries back instead of leaving tombstones.
+ * The table is kept at most half full. {@code null} keys are allowed.
+ *
+ * @param <K> the type of keys
+ */
+final class MyKeyIndex<K> {
+
+    static final long ABSENT = -1;
+    private static final int MIN_CAPACITY = 16;
+    // stands for the null key, because null marks an empty slot
+    private static final Object NULL_KEY = new Object();
+
+    Object[] keys;
+    int[] hashes;
+    long[] values;
+    int size;
+    // the index of a slot is taken from the highest bits of the mixed hash code
+    private int shift;
+
+    MyKeyIndex() {
+        allocate(MIN_CAPACITY);
+    }
+
+    private void allocate(int capacity) {
+        keys = new Object[capacity];
+        hashes = new int[capacity];
+        values = new long[capacity];
+        shift = Integer.numberOfLeadingZeros(capacity) + 1;
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        // Fibonacci hashing spreads poor hash codes, e.g. consecutive integers, over the table
+        return (h ^ (h >>> 16)) * 0x9E3779B9;
+    }
+
+    private int slotOf(int hash) {
+        return hash >>> shift;
+    }
+
+    private static Object mask(Object key) {
+        return key == null ? NULL_KEY : key;
+    }
+
+    // returns the slot of the key, or the complement of the empty slot where it would go
+    private int find(Object key, int hash) {
+        int m = keys.length - 1;
+        for (int i = slotOf(hash); ; i = (i + 1) & m) {
+            Object k = keys[i];
+            if (k == null) return ~i;
+            if (hashes[i] == hash && (k == key || k.equals(key))) return i;
+        }
+    }
+
+    long get(Object key) {
+        key = mask(key);
+        int i = find(key, hash(key));
+        return i >= 0 ? values[i] : ABSENT;
+    }
+
+    void put(K key, long value) {
+        Object k = mask(key);
+        int hash = hash(k);
+        int i = find(k, hash);
+        if (i >= 0) {
+            values[i] = value;
+            return;
+        }
+        if ((size + 1) * 2 > keys.length) {
+            resize(keys.length * 2);
+            i = find(k, hash);
+        }
+        i = ~i;
+        keys[i] = k;
+        hashes[i] = hash;
+        values[i] = value;
+        size++;
+    }
+
+    void remove(Object key) {
+        key = mask(key);
+        int i = find(key, hash(key));
+        if (i < 0) return;
+        int m = keys.length - 1;
+        // moving back the entries of the same probe run that may not stay behind the gap
+        for (int j = (i + 1) & m; keys[j] != null; j = (j + 1) & m) {
+            int ideal = slotOf(hashes[j]);
+            if (((j - ideal) & m) >= ((j - i) & m)) {
+                keys[i] = keys[j];
+                hashes[i] = hashes[j];
+                values[i] = values[j];
+                i = j;
+            }
+        }
+        keys[i] = null;
+        size--;
+    }
+
+    void clear() {
+        if (size == 0) return;
+        Arrays.fill(keys, null);
+        size = 0;
+    }
+
+    private void resize(int capacity) {
+        Object[] oldKeys = keys;
+        int[] oldHashes = hashes;
+        long[] oldValues = values;
+        allocate(capacity);
+        int m = capacity - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] == null) continue;
+            int i = slotOf(oldHashes[j]);
+            while (keys[i] != null) i = (i + 1) & m;
+            keys[i] = oldKeys[j];
+            hashes[i] = oldHashes[j];
+            values[i] = oldValues[j];
+        }
+    }
+}
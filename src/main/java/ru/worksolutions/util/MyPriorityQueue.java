@@ -0,0 +1,432 @@
+package ru.worksolutions.util;
+
+import java.util.*;
+import java.util.function.IntUnaryOperator;
+import java.util.function.Predicate;
+
+/**
+ * A priority queue backed by an implicit 4-ary heap stored in an {@code Object[]}.
+ * Compared to a binary heap the tree is half as deep and the children of a node
+ * are adjacent in the array, so sifting touches fewer cache lines on large queues.
+ * <p>
+ * The buffer grows through the same {@code calcNewCapacity} hook as {@link MyQueue}.
+ * Elements are ordered by the given {@link Comparator}, or by their natural ordering
+ * if it is {@code null}. {@code null} elements are not permitted.
+ *
+ * @param <E> the type of elements held in this queue
+ */
+@SuppressWarnings({"unchecked", "WeakerAccess"})
+public class MyPriorityQueue<E> extends AbstractQueue<E> {
+
+    private static final int ARITY = 4;
+    private static final int ARITY_SHIFT = 2;
+
+    Object[] buffer;
+    int count;
+    IntUnaryOperator calcNewCapacity;
+    private final Comparator<? super E> comparator;
+    // the comparator actually used for sifting, never null
+    private final Comparator<? super E> cmp;
+
+    public MyPriorityQueue() {
+        this(MyQueue.STARTING_CAPACITY_BY_DEFAULT, null, MyQueue.CALC_NEW_CAPACITY_BY_DEFAULT);
+    }
+
+    public MyPriorityQueue(int startingCapacity) {
+        this(startingCapacity, null, MyQueue.CALC_NEW_CAPACITY_BY_DEFAULT);
+    }
+
+    public MyPriorityQueue(Comparator<? super E> comparator) {
+        this(MyQueue.STARTING_CAPACITY_BY_DEFAULT, comparator, MyQueue.CALC_NEW_CAPACITY_BY_DEFAULT);
+    }
+
+    public MyPriorityQueue(int startingCapacity, Comparator<? super E> comparator) {
+        this(startingCapacity, comparator, MyQueue.CALC_NEW_CAPACITY_BY_DEFAULT);
+    }
+
+    public MyPriorityQueue(int startingCapacity, Comparator<? super E> comparator, IntUnaryOperator calcNewCapacity) {
+        if (startingCapacity <= 0)
+            throw new IllegalArgumentException();
+        this.comparator = comparator;
+        this.cmp = comparator != null ? comparator : (Comparator<? super E>) Comparator.naturalOrder();
+        this.calcNewCapacity = calcNewCapacity;
+        buffer = new Object[startingCapacity];
+        count = 0;
+    }
+
+    /**
+     * Returns the comparator used to order the elements in this queue,
+     * or {@code null} if this queue is sorted according to the
+     * natural ordering of its elements.
+     *
+     * @return the comparator used to order this queue, or {@code null}
+     * if this queue is sorted according to the natural ordering of its elements
+     */
+    public Comparator<? super E> comparator() {
+        return comparator;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * Returns an iterator over the elements in this queue. The iterator
+     * does not return the elements in any particular order.
+     *
+     * @return an iterator over the elements in this queue
+     */
+    public Iterator<E> iterator() {
+        return new MyPriorityQueueIterator();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    @Override
+    public Object[] toArray() {
+        return Arrays.copyOf(buffer, count);
+    }
+
+    @Override
+    @SuppressWarnings({"unchecked", "SuspiciousSystemArraycopy"})
+    public <T> T[] toArray(T[] a) {
+        if (a.length < count)
+            return (T[]) Arrays.copyOf(buffer, count, a.getClass());
+        System.arraycopy(buffer, 0, a, 0, count);
+        if (a.length > count)
+            a[count] = null;
+        return a;
+    }
+
+    /**
+     * Inserts the specified element into this priority queue.
+     *
+     * @param e the element to add
+     * @return {@code true}
+     * @throws ClassCastException   if the specified element cannot be
+     *                              compared with elements currently in this priority queue
+     *                              according to the priority queue's ordering
+     * @throws NullPointerException if the specified element is null
+     */
+    public boolean offer(E e) {
+        if (e == null)
+            throw new NullPointerException();
+        checkComparable(e);
+        if (count == buffer.length)
+            grow(count + 1);
+        siftUp(count, e);
+        count++;
+        return true;
+    }
+
+    /**
+     * Adds all of the elements in the specified collection to this queue.
+     * When the number of added elements is at least the current size of the
+     * queue the heap is rebuilt bottom-up in O(n) instead of sifting every
+     * new element up.
+     *
+     * @param c collection containing elements to be added to this queue
+     * @return {@code true} if this queue changed as a result of the call
+     * @throws NullPointerException     if the specified collection or any
+     *                                  of its elements are null
+     * @throws IllegalArgumentException if the specified collection is this queue
+     */
+    @Override
+    public boolean addAll(Collection<? extends E> c) {
+        if (c == this)
+            throw new IllegalArgumentException();
+        Object[] elements = c.toArray();
+        int added = elements.length;
+        if (added == 0)
+            return false;
+        for (Object o : elements) {
+            if (o == null)
+                throw new NullPointerException();
+        }
+        checkComparable(elements[0]);
+        int oldCount = count;
+        if (oldCount + added > buffer.length)
+            grow(oldCount + added);
+        if (added >= oldCount) {
+            System.arraycopy(elements, 0, buffer, oldCount, added);
+            count = oldCount + added;
+            heapify();
+        } else {
+            for (Object o : elements) {
+                siftUp(count, (E) o);
+                count++;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Retrieves and removes the head of this queue,
+     * or returns {@code null} if this queue is empty.
+     *
+     * @return the head of this queue, or {@code null} if this queue is empty
+     */
+    public E poll() {
+        if (count == 0) return null;
+        E result = (E) buffer[0];
+        int last = --count;
+        E moved = (E) buffer[last];
+        buffer[last] = null;
+        if (last > 0)
+            siftDown(0, moved);
+        return result;
+    }
+
+    /**
+     * Retrieves and removes up to {@code n} elements from the head of this queue
+     * in priority order. When all elements are requested they are sorted once
+     * instead of being drained one element at a time.
+     *
+     * @param n the maximum number of elements to remove
+     * @return a list of the removed elements, in priority order
+     * @throws IllegalArgumentException if {@code n} is negative
+     */
+    public List<E> pollN(int n) {
+        if (n < 0)
+            throw new IllegalArgumentException();
+        if (n >= count) {
+            Object[] all = Arrays.copyOf(buffer, count);
+            Arrays.sort(all, (Comparator<Object>) cmp);
+            clear();
+            return new ArrayList<>((List<E>) Arrays.asList(all));
+        }
+        List<E> result = new ArrayList<>(n);
+        for (int i = 0; i < n; i++)
+            result.add(poll());
+        return result;
+    }
+
+    /**
+     * Retrieves, but does not remove, the head of this queue,
+     * or returns {@code null} if this queue is empty.
+     *
+     * @return the head of this queue, or {@code null} if this queue is empty
+     */
+    public E peek() {
+        if (count == 0) return null;
+        return (E) buffer[0];
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        int i = indexOf(o);
+        if (i < 0)
+            return false;
+        removeAt(i);
+        return true;
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super E> filter) {
+        Objects.requireNonNull(filter);
+        return bulkRemove(filter);
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        Objects.requireNonNull(c);
+        return bulkRemove(c::contains);
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        Objects.requireNonNull(c);
+        return bulkRemove(e -> !c.contains(e));
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(buffer, 0, count, null);
+        count = 0;
+    }
+
+    private int indexOf(Object o) {
+        if (o != null) {
+            for (int i = 0; i < count; i++) {
+                if (o.equals(buffer[i]))
+                    return i;
+            }
+        }
+        return -1;
+    }
+
+    private int indexOfIdentity(Object o) {
+        for (int i = 0; i < count; i++) {
+            if (o == buffer[i])
+                return i;
+        }
+        return -1;
+    }
+
+    // returns the last element if it has been moved in place of the removed one and then up
+    // above index i, so an iterator that has passed i would miss it, otherwise null
+    private E removeAt(int i) {
+        int last = --count;
+        if (i == last) {
+            buffer[last] = null;
+            return null;
+        }
+        E moved = (E) buffer[last];
+        buffer[last] = null;
+        siftDown(i, moved);
+        if (buffer[i] == moved) {
+            siftUp(i, moved);
+            if (buffer[i] != moved)
+                return moved;
+        }
+        return null;
+    }
+
+    // compacts the kept elements in one pass and rebuilds the heap once, instead of a removeAt per element
+    private boolean bulkRemove(Predicate<? super E> filter) {
+        int n = count;
+        int kept = 0;
+        int i = 0;
+        try {
+            for (; i < n; i++) {
+                E e = (E) buffer[i];
+                if (!filter.test(e))
+                    buffer[kept++] = e;
+            }
+        } finally {
+            // if the filter has thrown, the elements it has not seen are kept
+            System.arraycopy(buffer, i, buffer, kept, n - i);
+            kept += n - i;
+            Arrays.fill(buffer, kept, n, null);
+            count = kept;
+            if (kept < n)
+                heapify();
+        }
+        return kept < n;
+    }
+
+    // a lone element is never compared, so the natural ordering would not reject a non-Comparable one
+    private void checkComparable(Object e) {
+        if (count == 0 && comparator == null)
+            cmp.compare((E) e, (E) e);
+    }
+
+    private void grow(int minCapacity) {
+        int capacity = buffer.length;
+        while (capacity < minCapacity) {
+            int newCapacity = calcNewCapacity.applyAsInt(capacity);
+            if (newCapacity <= capacity)
+                throw new IllegalStateException("calcNewCapacity must increase the capacity");
+            capacity = newCapacity;
+        }
+        buffer = Arrays.copyOf(buffer, capacity);
+    }
+
+    // Floyd's bottom-up construction, starting from the parent of the last element
+    private void heapify() {
+        for (int i = (count - 2) >> ARITY_SHIFT; i >= 0; i--)
+            siftDown(i, (E) buffer[i]);
+    }
+
+    private void siftUp(int index, E e) {
+        while (index > 0) {
+            int parent = (index - 1) >>> ARITY_SHIFT;
+            Object p = buffer[parent];
+            if (cmp.compare(e, (E) p) >= 0)
+                break;
+            buffer[index] = p;
+            index = parent;
+        }
+        buffer[index] = e;
+    }
+
+    private void siftDown(int index, E e) {
+        int n = count;
+        while (true) {
+            int firstChild = (index << ARITY_SHIFT) + 1;
+            if (firstChild >= n)
+                break;
+            // picking the smallest of up to ARITY adjacent children
+            int lastChild = Math.min(firstChild + ARITY, n);
+            int smallest = firstChild;
+            Object s = buffer[firstChild];
+            for (int c = firstChild + 1; c < lastChild; c++) {
+                if (cmp.compare((E) buffer[c], (E) s) < 0) {
+                    smallest = c;
+                    s = buffer[c];
+                }
+            }
+            if (cmp.compare(e, (E) s) <= 0)
+                break;
+            buffer[index] = s;
+            index = smallest;
+        }
+        buffer[index] = e;
+    }
+
+    private class MyPriorityQueueIterator implements Iterator<E> {
+        int iIndex;
+        // the index of the element returned by the last next(), or -1
+        int lastRet = -1;
+        // the elements that removal has moved from the end to the part already passed, returned at the end
+        MyQueue<E> forgetMeNot;
+        // the element returned by the last next() if it has been taken from forgetMeNot
+        E lastRetElement;
+
+        public boolean hasNext() {
+            return iIndex < count || forgetMeNot != null && forgetMeNot.count > 0;
+        }
+
+        public E next() {
+            if (iIndex < count) {
+                lastRet = iIndex;
+                return (E) buffer[iIndex++];
+            }
+            if (forgetMeNot != null && forgetMeNot.count > 0) {
+                lastRet = -1;
+                lastRetElement = forgetMeNot.remove();
+                return lastRetElement;
+            }
+            throw new NoSuchElementException();
+        }
+
+        public void remove() {
+            if (lastRet >= 0) {
+                E moved = removeAt(lastRet);
+                lastRet = -1;
+                if (moved == null) {
+                    // the next element, if any, is now at the removed index
+                    iIndex--;
+                } else {
+                    if (forgetMeNot == null) forgetMeNot = new MyQueue<>(ARITY);
+                    forgetMeNot.add(moved);
+                }
+            } else if (lastRetElement != null) {
+                removeAt(indexOfIdentity(lastRetElement));
+                lastRetElement = null;
+            } else {
+                throw new IllegalStateException();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(buffer[i].toString());
+        }
+        sb.append("}");
+        return sb.toString();
+    }
+}
@@ -6,8 +6,8 @@ import java.util.function.IntUnaryOperator;
 @SuppressWarnings({"unchecked", "WeakerAccess"})
 public class MyQueue<E> implements Queue<E> {
 
-    private static final int STARTING_CAPACITY_BY_DEFAULT = 100;
-    private static final IntUnaryOperator CALC_NEW_CAPACITY_BY_DEFAULT = x -> x * 2;
+    static final int STARTING_CAPACITY_BY_DEFAULT = 100;
+    static final IntUnaryOperator CALC_NEW_CAPACITY_BY_DEFAULT = x -> x * 2;
 
     Object[] buffer;
     int count;
@@ -220,11 +220,7 @@ public class MyQueue<E> implements Queue<E> {
      */
     public boolean add(E e) {
         // if there is no more space in the buffer, allocating a new buffer two times more
-        if (count == buffer.length) {
-            buffer = toArray(new Object[calcNewCapacity.applyAsInt(buffer.length)]);
-            indexToGet = 0;
-            indexToPut = count;
-        }
+        if (count == buffer.length) grow();
         buffer[indexToPut] = e;
         indexToPut++;
         if (indexToPut == buffer.length) indexToPut = 0;
@@ -232,11 +228,36 @@ public class MyQueue<E> implements Queue<E> {
         return true;
     }
 
+    // reallocates the buffer according to calcNewCapacity, the queue starts at index 0 afterwards
+    void grow() {
+        Object[] newBuffer = new Object[calcNewCapacity.applyAsInt(buffer.length)];
+        copyRing(buffer, buffer.length, indexToGet, count, newBuffer);
+        buffer = newBuffer;
+        indexToGet = 0;
+        indexToPut = count;
+    }
+
+    // copies count elements of a ring of the given length starting at indexToGet to the beginning of dest
+    @SuppressWarnings("SuspiciousSystemArraycopy")
+    static void copyRing(Object array, int length, int indexToGet, int count, Object dest) {
+        int lengthOfFirstHalf = Math.min(count, length - indexToGet);
+        System.arraycopy(array, indexToGet, dest, 0, lengthOfFirstHalf);
+        System.arraycopy(array, 0, dest, lengthOfFirstHalf, count - lengthOfFirstHalf);
+    }
+
+    // nulls count slots of the ring starting at indexToGet, so the removed elements can be garbage collected
+    static void clearRing(Object[] array, int indexToGet, int count) {
+        int lengthOfFirstHalf = Math.min(count, array.length - indexToGet);
+        Arrays.fill(array, indexToGet, indexToGet + lengthOfFirstHalf, null);
+        Arrays.fill(array, 0, count - lengthOfFirstHalf, null);
+    }
+
     private void removeAt(int indexInQueue) {
         // this method is called internally, so it is not necessary to validate parameters
         // presuming the queue in not empty and index is correct
         int indexInBuffer = (indexToGet + indexInQueue) % buffer.length;
         if (indexInBuffer == indexToGet) { // first in the queue
+            buffer[indexToGet] = null;
             indexToGet++;
             if (indexToGet == buffer.length) indexToGet = 0;
             count--;
@@ -245,6 +266,7 @@ public class MyQueue<E> implements Queue<E> {
         int lastIndex = indexToPut - 1;
         if (lastIndex < 0) lastIndex = buffer.length - 1;
         if (indexInBuffer == lastIndex) { // last in the queue
+            buffer[lastIndex] = null;
             indexToPut = lastIndex;
             count--;
             return;
@@ -258,18 +280,29 @@ public class MyQueue<E> implements Queue<E> {
             buffer[indexTo] = buffer[indexFrom];
         }
         */
-        int lengthToShift = count - (indexInQueue + 1);
-        int endIndex = indexInBuffer + 1 + lengthToShift;
-        int lengthOfFirstHalf = endIndex > buffer.length ? buffer.length - (indexInBuffer + 1) : lengthToShift;
-        System.arraycopy(buffer, indexInBuffer + 1, buffer, indexInBuffer, lengthOfFirstHalf);
-        if (endIndex > buffer.length) {
-            buffer[buffer.length - 1] = buffer[0];
-            System.arraycopy(buffer, 1, buffer, 0, lengthToShift - lengthOfFirstHalf - 1);
-        }
+        shiftLeft(indexInBuffer, count - (indexInQueue + 1));
+        buffer[lastIndex] = null;
         indexToPut = lastIndex;
         count--;
     }
 
+    // closes the gap at indexInBuffer by shifting the following lengthToShift elements of the ring
+    void shiftLeft(int indexInBuffer, int lengthToShift) {
+        shiftLeft(buffer, buffer.length, indexInBuffer, lengthToShift);
+    }
+
+    // the same for any array laid out as a ring of the given length, e.g. a parallel array in a subclass
+    @SuppressWarnings("SuspiciousSystemArraycopy")
+    static void shiftLeft(Object array, int length, int indexInBuffer, int lengthToShift) {
+        int endIndex = indexInBuffer + 1 + lengthToShift;
+        int lengthOfFirstHalf = endIndex > length ? length - (indexInBuffer + 1) : lengthToShift;
+        System.arraycopy(array, indexInBuffer + 1, array, indexInBuffer, lengthOfFirstHalf);
+        if (endIndex > length) {
+            System.arraycopy(array, 0, array, length - 1, 1);
+            System.arraycopy(array, 1, array, 0, lengthToShift - lengthOfFirstHalf - 1);
+        }
+    }
+
     /**
      * Removes a single instance of the specified element from this
      * collection, if it is present (optional operation).  More formally,
@@ -446,6 +479,7 @@ public class MyQueue<E> implements Queue<E> {
      *                                       is not supported by this collection
      */
     public void clear() {
+        clearRing(buffer, indexToGet, count);
         count = 0;
         indexToPut = 0;
         indexToGet = 0;
@@ -484,6 +518,7 @@ public class MyQueue<E> implements Queue<E> {
     public E remove() {
         if (count == 0) throw new NoSuchElementException();
         E e = (E) buffer[indexToGet];
+        buffer[indexToGet] = null;
         count--;
         indexToGet++;
         if (indexToGet == buffer.length) indexToGet = 0;
@@ -528,6 +563,8 @@ public class MyQueue<E> implements Queue<E> {
     private class MyQueueIterator implements Iterator<E> {
         int iCount;
         int iIndexToGet;
+        // whether next() has returned an element that has not been removed yet
+        boolean removable;
 
         MyQueueIterator() {
             iCount = count;
@@ -558,11 +595,26 @@ public class MyQueue<E> implements Queue<E> {
             iCount--;
             iIndexToGet++;
             if (iIndexToGet == buffer.length) iIndexToGet = 0;
+            removable = true;
             return e;
         }
 
+        /**
+         * Removes from the queue the last element returned by this iterator.
+         *
+         * @throws IllegalStateException if {@code next} has not been called yet,
+         *                               or {@code remove} has already been called after it
+         */
         public void remove() {
-
+            if (!removable) throw new IllegalStateException();
+            removable = false;
+            int indexInQueue = count - iCount - 1;
+            removeAt(indexInQueue);
+            // unless the head has been removed, the rest of the queue has shifted one slot to the left
+            if (indexInQueue > 0) {
+                iIndexToGet--;
+                if (iIndexToGet < 0) iIndexToGet = buffer.length - 1;
+            }
         }
     }
 
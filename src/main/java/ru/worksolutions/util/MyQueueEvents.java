@@ -0,0 +1,44 @@
+package ru.worksolutions.util;
+
+import jdk.jfr.*;
+
+/**
+ * JDK Flight Recorder events of {@link MyInstrumentedQueue}. They cost a single check
+ * when no recording has them enabled.
+ */
+final class MyQueueEvents {
+
+    private MyQueueEvents() {
+    }
+
+    @Name("ru.worksolutions.util.MyQueueResize")
+    @Label("MyQueue Resize")
+    @Category("MyQueue")
+    @Description("The buffer of a queue has been reallocated")
+    static final class Resize extends Event {
+        @Label("Old Capacity")
+        int oldCapacity;
+
+        @Label("New Capacity")
+        int newCapacity;
+
+        @Label("Elements Copied")
+        int elementsCopied;
+
+        @Label("Bytes Copied")
+        @DataAmount
+        long bytesCopied;
+    }
+
+    @Name("ru.worksolutions.util.MyQueueScan")
+    @Label("MyQueue Scan")
+    @Category("MyQueue")
+    @Description("A linear scan over a large queue")
+    static final class Scan extends Event {
+        @Label("Operation")
+        String operation;
+
+        @Label("Queue Size")
+        int size;
+    }
+}
@@ -0,0 +1,153 @@
+package ru.worksolutions.util;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and histograms collected by {@link MyInstrumentedQueue}.
+ * <p>
+ * All the fields are updated without locks, so one instance can be shared by several
+ * queues, even ones used by different threads, to see them as a whole. Register it with
+ * {@link #register(String)} to expose it through JMX.
+ */
+@SuppressWarnings("WeakerAccess")
+public class MyQueueMetrics implements MyQueueMetricsMXBean {
+
+    static final int SCAN_THRESHOLD_BY_DEFAULT = 10_000;
+
+    final LongAdder adds = new LongAdder();
+    final LongAdder polls = new LongAdder();
+    final LongAdder resizes = new LongAdder();
+    final LongAdder bytesCopied = new LongAdder();
+    final AtomicLong highWatermark = new AtomicLong();
+    final MyHistogram residenceTime = new MyHistogram();
+    final MyHistogram addLatency = new MyHistogram();
+    final MyHistogram pollLatency = new MyHistogram();
+    // scans over at least this many elements emit a MyQueueEvents.Scan event
+    final int scanThreshold;
+
+    public MyQueueMetrics() {
+        this(SCAN_THRESHOLD_BY_DEFAULT);
+    }
+
+    public MyQueueMetrics(int scanThreshold) {
+        if (scanThreshold <= 0)
+            throw new IllegalArgumentException();
+        this.scanThreshold = scanThreshold;
+    }
+
+    /**
+     * Registers these metrics in the platform MBean server under
+     * {@code ru.worksolutions.util:type=MyQueueMetrics,name=<name>}.
+     *
+     * @param name the name of the queue or of the group of queues
+     * @return the name the metrics have been registered under
+     * @throws JMException if the name is malformed or already registered
+     */
+    public ObjectName register(String name) throws JMException {
+        ObjectName objectName = new ObjectName("ru.worksolutions.util:type=MyQueueMetrics,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        return objectName;
+    }
+
+    void onAdd(long latencyNanos, int count) {
+        adds.increment();
+        addLatency.record(latencyNanos);
+        long watermark = highWatermark.get();
+        while (count > watermark && !highWatermark.compareAndSet(watermark, count))
+            watermark = highWatermark.get();
+    }
+
+    void onPoll(long latencyNanos, long residenceNanos) {
+        polls.increment();
+        pollLatency.record(latencyNanos);
+        residenceTime.record(residenceNanos);
+    }
+
+    void onResize(long bytes) {
+        resizes.increment();
+        bytesCopied.add(bytes);
+    }
+
+    public MyHistogram getResidenceTime() {
+        return residenceTime;
+    }
+
+    public MyHistogram getAddLatency() {
+        return addLatency;
+    }
+
+    public MyHistogram getPollLatency() {
+        return pollLatency;
+    }
+
+    public long getAddCount() {
+        return adds.sum();
+    }
+
+    public long getPollCount() {
+        return polls.sum();
+    }
+
+    public long getResizeCount() {
+        return resizes.sum();
+    }
+
+    public long getBytesCopied() {
+        return bytesCopied.sum();
+    }
+
+    public long getHighWatermark() {
+        return highWatermark.get();
+    }
+
+    public long getResidenceTimeP50() {
+        return residenceTime.getValueAtPercentile(50);
+    }
+
+    public long getResidenceTimeP99() {
+        return residenceTime.getValueAtPercentile(99);
+    }
+
+    public long getResidenceTimeMax() {
+        return residenceTime.getMax();
+    }
+
+    public long getAddLatencyP50() {
+        return addLatency.getValueAtPercentile(50);
+    }
+
+    public long getAddLatencyP99() {
+        return addLatency.getValueAtPercentile(99);
+    }
+
+    public long getAddLatencyMax() {
+        return addLatency.getMax();
+    }
+
+    public long getPollLatencyP50() {
+        return pollLatency.getValueAtPercentile(50);
+    }
+
+    public long getPollLatencyP99() {
+        return pollLatency.getValueAtPercentile(99);
+    }
+
+    public long getPollLatencyMax() {
+        return pollLatency.getMax();
+    }
+
+    public void reset() {
+        adds.reset();
+        polls.reset();
+        resizes.reset();
+        bytesCopied.reset();
+        highWatermark.set(0);
+        residenceTime.reset();
+        addLatency.reset();
+        pollLatency.reset();
+    }
+}
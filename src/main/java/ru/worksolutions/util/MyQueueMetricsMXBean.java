@@ -0,0 +1,38 @@
+package ru.worksolutions.util;
+
+/**
+ * The JMX view of {@link MyQueueMetrics}. Times are in nanoseconds.
+ */
+@SuppressWarnings("unused")
+public interface MyQueueMetricsMXBean {
+
+    long getAddCount();
+
+    long getPollCount();
+
+    long getResizeCount();
+
+    long getBytesCopied();
+
+    long getHighWatermark();
+
+    long getResidenceTimeP50();
+
+    long getResidenceTimeP99();
+
+    long getResidenceTimeMax();
+
+    long getAddLatencyP50();
+
+    long getAddLatencyP99();
+
+    long getAddLatencyMax();
+
+    long getPollLatencyP50();
+
+    long getPollLatencyP99();
+
+    long getPollLatencyMax();
+
+    void reset();
+}
@@ -0,0 +1,45 @@
+package ru.worksolutions.util;
+
+import java.util.function.IntUnaryOperator;
+
+/**
+ * A {@link MyQueue} that keeps a {@code long} stamp for every element, e.g. the time it was added.
+ * The stamps are a parallel ring laid out the same way as the buffer, so {@code stamps[i]}
+ * belongs to {@code buffer[i]} through growing and removing from the middle of the queue.
+ *
+ * @param <E> the type of elements held in this queue
+ */
+abstract class MyStampedQueue<E> extends MyQueue<E> {
+
+    long[] stamps;
+
+    MyStampedQueue(int startingCapacity, IntUnaryOperator calcNewCapacity) {
+        super(startingCapacity, calcNewCapacity);
+        stamps = new long[startingCapacity];
+    }
+
+    // adds the element to the tail of the queue together with its stamp
+    void add(E e, long stamp) {
+        super.add(e);
+        int lastIndex = indexToPut - 1;
+        if (lastIndex < 0) lastIndex = buffer.length - 1;
+        stamps[lastIndex] = stamp;
+    }
+
+    @Override
+    void grow() {
+        int oldLength = buffer.length;
+        int oldIndexToGet = indexToGet;
+        super.grow();
+        // laying out the stamps the same way as the new buffer, starting at index 0
+        long[] newStamps = new long[buffer.length];
+        copyRing(stamps, oldLength, oldIndexToGet, count, newStamps);
+        stamps = newStamps;
+    }
+
+    @Override
+    void shiftLeft(int indexInBuffer, int lengthToShift) {
+        super.shiftLeft(indexInBuffer, lengthToShift);
+        shiftLeft(stamps, stamps.length, indexInBuffer, lengthToShift);
+    }
+}
@@ -0,0 +1,205 @@
+package ru.worksolutions.util;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * A hierarchical timing wheel for scheduling a lot of timeouts.
+ * <p>
+ * Time is split into ticks of a fixed duration. The wheel has {@code LEVELS} levels of
+ * {@code WHEEL_SIZE} buckets each, every bucket is a {@link MyQueue}. A timer is put into
+ * the level of the highest digit (in base {@code WHEEL_SIZE}) in which its deadline tick
+ * differs from the current tick, so scheduling is O(1). Whenever the lower digits of the
+ * current tick wrap to zero, the bucket of the next level is cascaded down, and on every tick
+ * the current bucket of the lowest level is drained as a whole and its tasks are run.
+ * Cancelling only marks the timer, it is dropped when its bucket is drained or cascaded.
+ * <p>
+ * The wheel is not thread safe and does not own a thread: tasks are run by {@link #advance()}
+ * in the thread that calls it. The clock returns nanoseconds, must be monotonic and is
+ * {@link System#nanoTime()} by default.
+ */
+@SuppressWarnings("WeakerAccess")
+public class MyTimingWheel {
+
+    private static final int BITS = 6;
+    static final int WHEEL_SIZE = 1 << BITS;
+    private static final int MASK = WHEEL_SIZE - 1;
+    // enough levels to hold any non-negative long tick
+    static final int LEVELS = (Long.SIZE + BITS - 1) / BITS;
+    private static final int BUCKET_CAPACITY_BY_DEFAULT = 16;
+
+    final long tickNanos;
+    final LongSupplier clock;
+    final long startNanos;
+    long currentTick;
+    int pending;
+    // buckets are allocated on first use
+    final MyQueue<Timeout>[][] buckets;
+    // an empty bucket swapped in place of the one being drained
+    MyQueue<Timeout> spare;
+    boolean advancing;
+
+    public MyTimingWheel(long tickDuration, TimeUnit unit) {
+        this(tickDuration, unit, System::nanoTime);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public MyTimingWheel(long tickDuration, TimeUnit unit, LongSupplier clock) {
+        if (tickDuration <= 0)
+            throw new IllegalArgumentException();
+        this.tickNanos = unit.toNanos(tickDuration);
+        this.clock = Objects.requireNonNull(clock);
+        this.startNanos = clock.getAsLong();
+        this.buckets = new MyQueue[LEVELS][WHEEL_SIZE];
+        this.spare = new MyQueue<>(BUCKET_CAPACITY_BY_DEFAULT);
+    }
+
+    /**
+     * Schedules the task to be run by {@link #advance()} once the given delay has elapsed,
+     * rounded up to the tick duration. A task whose delay has already elapsed is run
+     * on the next tick.
+     *
+     * @param task  the task to run
+     * @param delay the delay
+     * @param unit  the time unit of the delay
+     * @return the handle of the timer which can be used to cancel it
+     * @throws NullPointerException if the task is null
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        Objects.requireNonNull(task);
+        long deadlineNanos = clock.getAsLong() - startNanos + Math.max(0, unit.toNanos(delay));
+        if (deadlineNanos < 0) deadlineNanos = Long.MAX_VALUE; // overflow
+        long deadline = deadlineNanos / tickNanos;
+        if (deadline * tickNanos != deadlineNanos) deadline++;
+        if (deadline <= currentTick) deadline = currentTick + 1;
+        Timeout timeout = new Timeout(this, task, deadline);
+        place(timeout);
+        pending++;
+        return timeout;
+    }
+
+    /**
+     * Moves the wheel to the current time of the clock, running the tasks of all the
+     * timers that have expired on the way. If a task throws an exception, the remaining
+     * tasks of the same tick are still run and the first exception is rethrown afterwards.
+     *
+     * @return the number of tasks that have been run
+     * @throws IllegalStateException if it is called from a task of this wheel
+     */
+    public int advance() {
+        if (advancing)
+            throw new IllegalStateException("advance() is called from a task");
+        long targetTick = (clock.getAsLong() - startNanos) / tickNanos;
+        int run = 0;
+        advancing = true;
+        try {
+            while (currentTick < targetTick)
+                run += tick();
+        } finally {
+            advancing = false;
+        }
+        return run;
+    }
+
+    /**
+     * Returns the number of timers that have been scheduled and have neither
+     * expired nor been cancelled yet.
+     *
+     * @return the number of pending timers
+     */
+    public int pending() {
+        return pending;
+    }
+
+    private void place(Timeout timeout) {
+        // the level of the highest differing digit, a timer due right now goes to the current bucket of level 0
+        int level = (63 - Long.numberOfLeadingZeros(timeout.deadline ^ currentTick)) / BITS;
+        int slot = (int) (timeout.deadline >>> (level * BITS)) & MASK;
+        MyQueue<Timeout> bucket = buckets[level][slot];
+        if (bucket == null)
+            bucket = buckets[level][slot] = new MyQueue<>(BUCKET_CAPACITY_BY_DEFAULT);
+        bucket.add(timeout);
+    }
+
+    // swaps the bucket with the empty spare one and returns it, so it can be drained as a whole
+    private MyQueue<Timeout> takeBucket(int level, int slot) {
+        MyQueue<Timeout> bucket = buckets[level][slot];
+        if (bucket == null || bucket.count == 0)
+            return null;
+        buckets[level][slot] = spare;
+        spare = bucket;
+        return bucket;
+    }
+
+    private int tick() {
+        currentTick++;
+        // cascading the levels whose lower digits have just wrapped to zero, the highest first
+        int topLevel = Math.min(Long.numberOfTrailingZeros(currentTick) / BITS, LEVELS - 1);
+        for (int level = topLevel; level > 0; level--) {
+            MyQueue<Timeout> bucket = takeBucket(level, (int) (currentTick >>> (level * BITS)) & MASK);
+            if (bucket == null) continue;
+            for (Timeout timeout : bucket) {
+                if (!timeout.cancelled) place(timeout);
+            }
+            bucket.clear();
+        }
+
+        MyQueue<Timeout> bucket = takeBucket(0, (int) currentTick & MASK);
+        if (bucket == null) return 0;
+        int run = 0;
+        RuntimeException exception = null;
+        for (Timeout timeout : bucket) {
+            if (timeout.cancelled) continue;
+            timeout.expired = true;
+            pending--;
+            run++;
+            try {
+                timeout.task.run();
+            } catch (RuntimeException e) {
+                if (exception == null) exception = e;
+                else exception.addSuppressed(e);
+            }
+        }
+        bucket.clear();
+        if (exception != null) throw exception;
+        return run;
+    }
+
+    /**
+     * A handle of a scheduled timer.
+     */
+    public static final class Timeout {
+        final MyTimingWheel wheel;
+        final Runnable task;
+        final long deadline;
+        boolean cancelled;
+        boolean expired;
+
+        Timeout(MyTimingWheel wheel, Runnable task, long deadline) {
+            this.wheel = wheel;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Cancels the timer unless it has already expired or been cancelled.
+         *
+         * @return {@code true} if the timer has been cancelled by this call
+         */
+        public boolean cancel() {
+            if (cancelled || expired) return false;
+            cancelled = true;
+            wheel.pending--;
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        public boolean isExpired() {
+            return expired;
+        }
+    }
+}
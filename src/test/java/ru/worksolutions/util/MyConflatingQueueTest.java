@@ -0,0 +1,81 @@
+package ru.worksolutions.util;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings("SimplifiableJUnitAssertion")
+class MyConflatingQueueTest {
+
+    // elements are strings like "a=1", the key is the part before '='
+    private static MyConflatingQueue<String, String> newQueue(int startingCapacity) {
+        return new MyConflatingQueue<>(startingCapacity, s -> s.substring(0, s.indexOf('=')));
+    }
+
+    @org.junit.jupiter.api.Test
+    void conflates() {
+        MyConflatingQueue<String, String> q = newQueue(5);
+        q.addAll(Arrays.asList("a=1", "b=1", "a=2", "c=1", "a=3", "b=2"));
+        assertEquals("{a=3, b=2, c=1}", q.toString());
+        assertEquals(3, q.size());
+        assertEquals(3, q.getConflatedCount());
+        assertEquals("a=3", q.poll());
+        // a has left the queue, its next value goes to the tail
+        q.add("a=4");
+        q.add("c=2");
+        assertEquals("{b=2, c=2, a=4}", q.toString());
+        assertEquals("b=2", q.remove());
+        assertEquals("c=2", q.remove());
+        assertEquals("a=4", q.remove());
+        assertEquals(null, q.poll());
+        assertThrows(NullPointerException.class, () -> q.add(null));
+    }
+
+    @org.junit.jupiter.api.Test
+    void keepsPositionsAcrossWrapAndGrowth() {
+        MyConflatingQueue<String, String> q = newQueue(4);
+        q.addAll(Arrays.asList("a=1", "b=1", "c=1", "d=1"));
+        assertEquals("a=1", q.poll());
+        assertEquals("b=1", q.poll());
+        q.addAll(Arrays.asList("e=1", "f=1"));
+        // the ring is full and wrapped now
+        q.add("f=2");
+        q.add("c=2");
+        assertEquals("{c=2, d=1, e=1, f=2}", q.toString());
+        q.add("g=1");
+        assertEquals(8, q.buffer.length);
+        q.add("e=2");
+        q.add("g=2");
+        assertEquals("{c=2, d=1, e=2, f=2, g=2}", q.toString());
+    }
+
+    @org.junit.jupiter.api.Test
+    void removeFromMiddle() {
+        MyConflatingQueue<String, String> q = newQueue(5);
+        q.addAll(Arrays.asList("a=1", "b=1", "c=1", "d=1"));
+        assertEquals(true, q.remove("b=1"));
+        assertEquals(false, q.remove("b=1"));
+        q.add("c=2");
+        q.add("b=2");
+        assertEquals("{a=1, c=2, d=1, b=2}", q.toString());
+        q.removeAll(Arrays.asList("a=1", "d=1"));
+        q.add("b=3");
+        assertEquals("{c=2, b=3}", q.toString());
+        q.retainAll(Arrays.asList("b=3"));
+        q.add("b=4");
+        q.add("a=2");
+        assertEquals("{b=4, a=2}", q.toString());
+        q.clear();
+        q.add("b=5");
+        assertEquals("{b=5}", q.toString());
+    }
+
+    @org.junit.jupiter.api.Test
+    void manyKeys() {
+        MyConflatingQueue<Integer, Integer> q = new MyConflatingQueue<>(i -> i % 1000);
+        for (int i = 0; i < 100_000; i++) q.add(i);
+        assertEquals(1000, q.size());
+        for (int i = 0; i < 1000; i++) assertEquals(99_000 + i, (int) q.poll());
+        assertEquals(0, q.index.size);
+    }
+}
@@ -0,0 +1,138 @@
+package ru.worksolutions.util;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings("SimplifiableJUnitAssertion")
+class MyExpiringQueueTest {
+
+    private long now;
+    private final List<List<Integer>> expired = new ArrayList<>();
+
+    private MyExpiringQueue<Integer> newQueue(int startingCapacity) {
+        return new MyExpiringQueue<>(startingCapacity, x -> x * 2, 10, TimeUnit.NANOSECONDS,
+                () -> now, expired::add);
+    }
+
+    @org.junit.jupiter.api.Test
+    void expiresFromHead() {
+        MyExpiringQueue<Integer> q = newQueue(5);
+        q.add(1);
+        q.add(2);
+        now = 5;
+        q.add(3);
+        assertEquals("{1, 2, 3}", q.toString());
+        now = 10;
+        assertEquals(1, q.size());
+        assertEquals(Collections.singletonList(Arrays.asList(1, 2)), expired);
+        assertEquals(3, (int) q.peek());
+        now = 15;
+        assertEquals(null, q.poll());
+        assertEquals(true, q.isEmpty());
+        assertEquals(Arrays.asList(Arrays.asList(1, 2), Collections.singletonList(3)), expired);
+        //noinspection ResultOfMethodCallIgnored
+        assertThrows(NoSuchElementException.class, q::remove);
+    }
+
+    @org.junit.jupiter.api.Test
+    void stopsAtFirstLiveElement() {
+        MyExpiringQueue<Integer> q = newQueue(5);
+        for (int i = 0; i < 20; i++) {
+            now = i / 2;
+            q.add(i);
+        }
+        assertEquals(true, expired.isEmpty());
+        now = 14;
+        // elements stamped 0..4 are expired, 5..9 are live
+        assertEquals(10, q.evictExpired());
+        assertEquals(0, q.evictExpired());
+        assertEquals("{10, 11, 12, 13, 14, 15, 16, 17, 18, 19}", q.toString());
+        assertEquals(10, (int) q.poll());
+        assertEquals(1, expired.size());
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), expired.get(0));
+    }
+
+    @org.junit.jupiter.api.Test
+    void keepsStampsAcrossWrapAndGrowth() {
+        MyExpiringQueue<Integer> q = newQueue(4);
+        q.addAll(Arrays.asList(1, 2, 3, 4));
+        assertEquals(1, (int) q.poll());
+        assertEquals(2, (int) q.poll());
+        now = 3;
+        q.add(5);
+        q.add(6);
+        // the buffer is full and wrapped, the next add grows it
+        now = 6;
+        q.add(7);
+        assertEquals(8, q.buffer.length);
+        assertEquals("{3, 4, 5, 6, 7}", q.toString());
+        now = 10;
+        assertEquals("{5, 6, 7}", q.toString());
+        now = 13;
+        assertEquals("{7}", q.toString());
+        now = 16;
+        assertEquals("{}", q.toString());
+        assertEquals(Arrays.asList(Arrays.asList(3, 4), Arrays.asList(5, 6), Collections.singletonList(7)), expired);
+    }
+
+    @org.junit.jupiter.api.Test
+    void keepsStampsOnRemoveFromMiddle() {
+        MyExpiringQueue<Integer> q = newQueue(5);
+        for (int i = 1; i <= 5; i++) {
+            now = i;
+            q.add(i);
+        }
+        assertEquals(true, q.remove((Object) 2));
+        now = 13;
+        // 3 was stamped at 3 and must have moved together with its stamp
+        assertEquals("{4, 5}", q.toString());
+        assertEquals(Collections.singletonList(Arrays.asList(1, 3)), expired);
+    }
+
+    @org.junit.jupiter.api.Test
+    void releasesEvictedElements() {
+        MyExpiringQueue<Integer> q = newQueue(4);
+        q.addAll(Arrays.asList(1, 2));
+        assertEquals(1, (int) q.poll());
+        now = 5;
+        q.addAll(Arrays.asList(3, 4, 5));
+        // 3, 4 and 5 are at indexes 2, 3 and 0, so the second run wraps around the end of the buffer
+        now = 10;
+        assertEquals(1, q.evictExpired());
+        now = 15;
+        assertEquals(3, q.evictExpired());
+        for (Object o : q.buffer) assertEquals(null, o);
+    }
+
+    @org.junit.jupiter.api.Test
+    void removesOnlyLiveElements() {
+        MyExpiringQueue<Integer> q = newQueue(5);
+        q.addAll(Arrays.asList(1, 2));
+        now = 5;
+        q.addAll(Arrays.asList(3, 4, 5));
+        now = 10;
+        // 1 and 2 have expired, so they go to the callback instead of being removed
+        assertEquals(false, q.remove((Object) 1));
+        assertEquals(Collections.singletonList(Arrays.asList(1, 2)), expired);
+        assertEquals(true, q.removeAll(Arrays.asList(2, 3)));
+        assertEquals(true, q.retainAll(Collections.singletonList(4)));
+        assertEquals("{4}", q.toString());
+        now = 15;
+        assertEquals(false, q.removeAll(Collections.singletonList(4)));
+        assertEquals(false, q.retainAll(Collections.emptyList()));
+        assertEquals(Arrays.asList(Arrays.asList(1, 2), Collections.singletonList(4)), expired);
+    }
+
+    @org.junit.jupiter.api.Test
+    void withoutCallback() {
+        MyExpiringQueue<Integer> q = new MyExpiringQueue<>(5, x -> x * 2, 1, TimeUnit.SECONDS, () -> now, null);
+        q.add(1);
+        now = TimeUnit.MILLISECONDS.toNanos(999);
+        assertEquals(1, q.size());
+        now = TimeUnit.SECONDS.toNanos(1);
+        assertEquals(0, q.size());
+        assertThrows(IllegalArgumentException.class, () -> new MyExpiringQueue<Integer>(0, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,164 @@
+package ru.worksolutions.util;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings("SimplifiableJUnitAssertion")
+class MyFairQueueTest {
+
+    // elements are strings like "a1", the key is the first letter
+    private static MyFairQueue<Character, String> newQueue() {
+        return new MyFairQueue<>(s -> s.charAt(0));
+    }
+
+    private static String pollAll(Queue<String> q) {
+        StringBuilder sb = new StringBuilder();
+        String s;
+        while ((s = q.poll()) != null) {
+            if (sb.length() > 0) sb.append(' ');
+            sb.append(s);
+        }
+        return sb.toString();
+    }
+
+    @org.junit.jupiter.api.Test
+    void roundRobin() {
+        MyFairQueue<Character, String> q = newQueue();
+        // a noisy tenant first, then two quiet ones
+        for (int i = 1; i <= 5; i++) q.add("a" + i);
+        q.addAll(Arrays.asList("b1", "c1", "b2"));
+        assertEquals(8, q.size());
+        assertEquals(5, q.size('a'));
+        assertEquals(0, q.size('z'));
+        assertEquals(3, q.activeKeys());
+        assertEquals("a1", q.peek());
+        assertEquals("a1 b1 c1 a2 b2 a3 a4 a5", pollAll(q));
+        assertEquals(true, q.isEmpty());
+        assertEquals(0, q.activeKeys());
+        assertEquals(null, q.peek());
+    }
+
+    @org.junit.jupiter.api.Test
+    void weights() {
+        MyFairQueue<Character, String> q = new MyFairQueue<>(s -> s.charAt(0), k -> k == 'a' ? 3 : 1);
+        for (int i = 1; i <= 6; i++) q.add("a" + i);
+        for (int i = 1; i <= 3; i++) q.add("b" + i);
+        assertEquals("a1 a2 a3 b1 a4 a5 a6 b2 b3", pollAll(q));
+
+        MyFairQueue<Character, String> invalid = new MyFairQueue<>(s -> s.charAt(0), k -> 0);
+        assertThrows(IllegalArgumentException.class, () -> invalid.add("a1"));
+        assertThrows(NullPointerException.class, () -> q.add(null));
+    }
+
+    @org.junit.jupiter.api.Test
+    void keyComesBackAfterIdle() {
+        MyFairQueue<Character, String> q = newQueue();
+        q.addAll(Arrays.asList("a1", "b1", "b2"));
+        assertEquals("a1", q.poll());
+        // a is idle now and joins the round again at its back
+        q.add("a2");
+        assertEquals(2, q.activeKeys());
+        assertEquals("b1 a2 b2", pollAll(q));
+    }
+
+    @org.junit.jupiter.api.Test
+    void recyclesSubQueues() {
+        MyFairQueue<Integer, Integer> q = new MyFairQueue<>(i -> i, k -> 1, 4, 2);
+        for (int i = 0; i < 100; i++) q.add(i);
+        assertEquals(100, q.subQueues.size());
+        for (int i = 0; i < 100; i++) assertEquals(i, (int) q.poll());
+        assertEquals(0, q.subQueues.size());
+        assertEquals(2, q.pool.size());
+        for (MyQueue<Integer> pooled : q.pool) {
+            assertEquals(0, pooled.size());
+            for (Object o : pooled.buffer) assertEquals(null, o);
+        }
+        q.add(7);
+        assertEquals(1, q.pool.size());
+        assertEquals(7, (int) q.poll());
+
+        // a sub-queue that has grown too big is left to the garbage collector
+        for (int i = 0; i <= MyFairQueue.MAX_POOLED_BUFFER; i++) q.add(1);
+        assertEquals(1, q.pool.size());
+        q.clear();
+        assertEquals(1, q.pool.size());
+        assertEquals(0, q.size());
+    }
+
+    @org.junit.jupiter.api.Test
+    void releasesIdleSubQueues() {
+        MyFairQueue<Integer, Integer> q = new MyFairQueue<>(i -> i % 10, k -> 1, 4, 0);
+        for (int i = 0; i < 100; i++) q.add(i);
+        for (int i = 0; i < 50; i++) q.poll();
+        q.clear();
+        for (int i = 0; i < 20; i++) q.add(i);
+        for (int i = 0; i < 20; i++) q.poll();
+        // nothing is pooled, and the round does not keep the sub-queues it has dropped
+        assertEquals(0, q.pool.size());
+        for (Object o : q.round.buffer) assertEquals(null, o);
+
+        MyFairQueue<Integer, Integer> pooling = new MyFairQueue<>(i -> i, k -> 1, 4, 1);
+        pooling.add(1);
+        pooling.poll();
+        // polling has released the element, so the pooled sub-queue is clean without clearing the whole buffer
+        for (Object o : pooling.pool.peek().buffer) assertEquals(null, o);
+        pooling.add(2);
+        // the reused sub-queue is in use again, so the pool must not reference it any more
+        for (Object o : pooling.pool.buffer) assertEquals(null, o);
+    }
+
+    @org.junit.jupiter.api.Test
+    void iterator() {
+        MyFairQueue<Character, String> q = newQueue();
+        q.addAll(Arrays.asList("a1", "b1", "a2"));
+        List<String> all = new ArrayList<>();
+        for (String s : q) all.add(s);
+        assertEquals(Arrays.asList("a1", "a2", "b1"), all);
+        assertEquals(true, q.contains("b1"));
+        assertEquals(false, q.contains("b2"));
+    }
+
+    @org.junit.jupiter.api.Test
+    void removeObject() {
+        MyFairQueue<Character, String> q = newQueue();
+        q.addAll(Arrays.asList("a1", "b1", "a2", "c1"));
+        assertEquals(true, q.remove("a2"));
+        assertEquals(false, q.remove("a2"));
+        assertEquals(false, q.remove("d1"));
+        assertEquals(false, q.remove(null));
+        // not even a String, so the key extractor cannot be applied to it
+        assertEquals(false, q.remove(1));
+        // the key of b leaves the round together with its last element
+        assertEquals(true, q.remove("b1"));
+        assertEquals(2, q.activeKeys());
+        assertEquals(0, q.size('b'));
+        assertEquals(2, q.size());
+        for (Object o : q.round.buffer) {
+            if (o != null) assertEquals(false, ((MyFairQueue.SubQueue<?, ?>) o).key.equals('b'));
+        }
+        q.add("b2");
+        assertEquals("a1 c1 b2", pollAll(q));
+    }
+
+    @org.junit.jupiter.api.Test
+    void iteratorRemove() {
+        MyFairQueue<Character, String> q = newQueue();
+        q.addAll(Arrays.asList("a1", "b1", "a2", "c1", "b2", "a3"));
+        Iterator<String> it = q.iterator();
+        assertThrows(IllegalStateException.class, it::remove);
+        while (it.hasNext()) {
+            if (it.next().charAt(0) != 'c') it.remove();
+        }
+        assertEquals(1, q.size());
+        assertEquals(1, q.activeKeys());
+        assertEquals("c1", pollAll(q));
+
+        q.addAll(Arrays.asList("a1", "b1", "a2", "c1", "b2", "a3"));
+        assertEquals(true, q.removeIf(s -> s.endsWith("2")));
+        assertEquals(true, q.removeAll(Collections.singletonList("c1")));
+        assertEquals(true, q.retainAll(Arrays.asList("a1", "a3")));
+        assertEquals(1, q.activeKeys());
+        assertEquals("a1 a3", pollAll(q));
+    }
+}
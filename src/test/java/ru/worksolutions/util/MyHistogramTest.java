@@ -0,0 +1,42 @@
+package ru.worksolutions.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings("SimplifiableJUnitAssertion")
+class MyHistogramTest {
+
+    @org.junit.jupiter.api.Test
+    void buckets() {
+        // small values are exact
+        for (int i = 0; i < MyHistogram.SUB_BUCKETS; i++) {
+            assertEquals(i, MyHistogram.indexOf(i));
+            assertEquals(i, MyHistogram.highestValueOf(i));
+        }
+        // every value falls into the bucket whose range contains it, within about 3%
+        long[] values = {32, 33, 63, 64, 65, 1000, 123_456_789, Long.MAX_VALUE / 3, Long.MAX_VALUE};
+        for (long value : values) {
+            long highest = MyHistogram.highestValueOf(MyHistogram.indexOf(value));
+            assertEquals(true, highest >= value, "bucket too low for " + value);
+            assertEquals(true, highest - value <= value / MyHistogram.SUB_BUCKETS, "bucket too wide for " + value);
+        }
+        assertEquals(Long.MAX_VALUE, MyHistogram.highestValueOf(MyHistogram.indexOf(Long.MAX_VALUE)));
+    }
+
+    @org.junit.jupiter.api.Test
+    void percentiles() {
+        MyHistogram h = new MyHistogram();
+        assertEquals(0, h.getValueAtPercentile(99));
+        for (int i = 1; i <= 100; i++) h.record(i);
+        h.record(-5);
+        assertEquals(101, h.getTotalCount());
+        assertEquals(100, h.getMax());
+        assertEquals(0, h.getValueAtPercentile(0));
+        long p50 = h.getValueAtPercentile(50);
+        assertEquals(true, p50 >= 50 && p50 <= 51, "p50 = " + p50);
+        assertEquals(100, h.getValueAtPercentile(100));
+        assertThrows(IllegalArgumentException.class, () -> h.getValueAtPercentile(101));
+        h.reset();
+        assertEquals(0, h.getTotalCount());
+        assertEquals(0, h.getMax());
+    }
+}
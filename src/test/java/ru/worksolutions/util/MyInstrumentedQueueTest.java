@@ -0,0 +1,79 @@
+package ru.worksolutions.util;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings("SimplifiableJUnitAssertion")
+class MyInstrumentedQueueTest {
+
+    @org.junit.jupiter.api.Test
+    void counters() {
+        MyQueueMetrics metrics = new MyQueueMetrics();
+        MyInstrumentedQueue<Integer> q = new MyInstrumentedQueue<>(4, metrics);
+        q.addAll(Arrays.asList(1, 2, 3, 4));
+        assertEquals(0, metrics.getResizeCount());
+        q.add(5);
+        assertEquals(1, metrics.getResizeCount());
+        assertEquals(4L * MyInstrumentedQueue.BYTES_PER_REFERENCE, metrics.getBytesCopied());
+        assertEquals(1, (int) q.poll());
+        assertEquals(2, (int) q.remove());
+        assertEquals(null, new MyInstrumentedQueue<Integer>(metrics).poll());
+        assertEquals(5, metrics.getAddCount());
+        assertEquals(2, metrics.getPollCount());
+        assertEquals(5, metrics.getHighWatermark());
+        assertEquals(5, metrics.getAddLatency().getTotalCount());
+        assertEquals(2, metrics.getPollLatency().getTotalCount());
+        assertEquals(2, metrics.getResidenceTime().getTotalCount());
+        assertEquals("{3, 4, 5}", q.toString());
+        metrics.reset();
+        assertEquals(0, metrics.getAddCount());
+        assertEquals(0, metrics.getHighWatermark());
+    }
+
+    @org.junit.jupiter.api.Test
+    void residenceTime() throws InterruptedException {
+        MyQueueMetrics metrics = new MyQueueMetrics();
+        MyInstrumentedQueue<Integer> q = new MyInstrumentedQueue<>(2, metrics);
+        q.add(1);
+        q.add(2);
+        q.remove(1);
+        // 2 has moved to the head together with its stamp, then the buffer wraps and grows
+        q.add(3);
+        q.add(4);
+        Thread.sleep(20);
+        assertEquals(2, (int) q.poll());
+        assertEquals(true, metrics.getResidenceTimeMax() >= 20_000_000L);
+        assertEquals(true, metrics.getResidenceTimeMax() < 10_000_000_000L);
+        assertEquals("{3, 4}", q.toString());
+    }
+
+    @org.junit.jupiter.api.Test
+    void scans() {
+        MyInstrumentedQueue<Integer> q = new MyInstrumentedQueue<>(new MyQueueMetrics(2));
+        q.addAll(Arrays.asList(1, 2, 3, 4, 5));
+        assertEquals(true, q.contains(3));
+        assertEquals(true, q.remove((Object) 3));
+        assertEquals(true, q.removeAll(Arrays.asList(1, 5)));
+        assertEquals(true, q.retainAll(Arrays.asList(2)));
+        assertEquals("{2}", q.toString());
+    }
+
+    @org.junit.jupiter.api.Test
+    void mxBean() throws Exception {
+        MyQueueMetrics metrics = new MyQueueMetrics();
+        MyInstrumentedQueue<Integer> q = new MyInstrumentedQueue<>(metrics);
+        q.addAll(Arrays.asList(1, 2, 3));
+        ObjectName name = metrics.register("mxBean test");
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            assertEquals(3L, server.getAttribute(name, "AddCount"));
+            assertEquals(3L, server.getAttribute(name, "HighWatermark"));
+        } finally {
+            server.unregisterMBean(name);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package ru.worksolutions.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MyKeyIndexTest {
+
+    @org.junit.jupiter.api.Test
+    void putGetRemove() {
+        MyKeyIndex<String> index = new MyKeyIndex<>();
+        assertEquals(MyKeyIndex.ABSENT, index.get("a"));
+        index.put("a", 1);
+        index.put(null, 2);
+        index.put("a", 3);
+        assertEquals(3, index.get("a"));
+        assertEquals(2, index.get(null));
+        assertEquals(2, index.size);
+        index.remove(null);
+        index.remove("b");
+        assertEquals(MyKeyIndex.ABSENT, index.get(null));
+        assertEquals(1, index.size);
+        index.clear();
+        assertEquals(MyKeyIndex.ABSENT, index.get("a"));
+    }
+
+    @org.junit.jupiter.api.Test
+    void sameAsHashMap() {
+        MyKeyIndex<Integer> index = new MyKeyIndex<>();
+        Map<Integer, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            // multiples of 64 have equal low bits, so the mixing of hash codes is exercised as well
+            Integer key = random.nextInt(5000) * 64;
+            if (random.nextInt(3) == 0) {
+                index.remove(key);
+                expected.remove(key);
+            } else {
+                index.put(key, i);
+                expected.put(key, (long) i);
+            }
+        }
+        assertEquals(expected.size(), index.size);
+        for (int key = 0; key < 5000 * 64; key += 64)
+            assertEquals((long) expected.getOrDefault(key, MyKeyIndex.ABSENT), index.get(key));
+    }
+}
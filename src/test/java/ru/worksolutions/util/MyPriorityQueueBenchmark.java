@@ -0,0 +1,63 @@
+package ru.worksolutions.util;
+
+import java.util.*;
+
+/**
+ * A rough comparison of {@link MyPriorityQueue} against {@link PriorityQueue}.
+ * It is not run as a part of the test suite; start it manually with an optional
+ * number of elements as the first argument (1 000 000 by default), e.g. with
+ * {@code -Xmx4g} and {@code 10000000} for the sizes we see in production.
+ */
+public class MyPriorityQueueBenchmark {
+
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Integer[] values = new Integer[n];
+        Random random = new Random(42);
+        for (int i = 0; i < n; i++) values[i] = random.nextInt();
+        List<Integer> list = Arrays.asList(values);
+
+        for (int round = 1; round <= ROUNDS; round++) {
+            System.out.println("round " + round + ", n = " + n);
+            report("insert/poll  PriorityQueue  ", insertPoll(new PriorityQueue<>(), values));
+            report("insert/poll  MyPriorityQueue", insertPoll(new MyPriorityQueue<>(), values));
+            report("bulk load    PriorityQueue  ", bulkLoad(new PriorityQueue<>(), list));
+            report("bulk load    MyPriorityQueue", bulkLoad(new MyPriorityQueue<>(), list));
+        }
+    }
+
+    // inserting everything one by one interleaved with polls, then draining the queue
+    private static long insertPoll(Queue<Integer> q, Integer[] values) {
+        long start = System.nanoTime();
+        long sink = 0;
+        for (int i = 0; i < values.length; i++) {
+            q.offer(values[i]);
+            if ((i & 3) == 3) sink += q.poll();
+        }
+        while (!q.isEmpty()) sink += q.poll();
+        blackhole(sink);
+        return System.nanoTime() - start;
+    }
+
+    // loading everything with a single addAll, then draining the queue
+    private static long bulkLoad(Queue<Integer> q, List<Integer> values) {
+        long start = System.nanoTime();
+        long sink = 0;
+        q.addAll(values);
+        while (!q.isEmpty()) sink += q.poll();
+        blackhole(sink);
+        return System.nanoTime() - start;
+    }
+
+    private static void report(String name, long nanos) {
+        System.out.printf("  %s %8d ms%n", name, nanos / 1_000_000);
+    }
+
+    private static volatile long blackhole;
+
+    private static void blackhole(long value) {
+        blackhole = value;
+    }
+}
@@ -0,0 +1,199 @@
+package ru.worksolutions.util;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings("SimplifiableJUnitAssertion")
+class MyPriorityQueueTest {
+
+    @org.junit.jupiter.api.Test
+    void changingCapacity() {
+        MyPriorityQueue<Integer> q1 = new MyPriorityQueue<>(5);
+        q1.addAll(Arrays.asList(5, 4, 3, 2, 1));
+        assertEquals(5, q1.buffer.length);
+        q1.add(6);
+        // by default capacity multiplies by two, the same as in MyQueue
+        assertEquals(10, q1.buffer.length);
+
+        MyPriorityQueue<Integer> q2 = new MyPriorityQueue<>(5, null, x -> x + 100);
+        q2.addAll(Arrays.asList(5, 4, 3, 2, 1));
+        q2.add(6);
+        assertEquals(105, q2.buffer.length);
+
+        MyPriorityQueue<Integer> q3 = new MyPriorityQueue<>(1, null, x -> x);
+        q3.add(1);
+        assertThrows(IllegalStateException.class, () -> q3.add(2));
+    }
+
+    @org.junit.jupiter.api.Test
+    void pollOrder() {
+        MyPriorityQueue<Integer> q = new MyPriorityQueue<>(3);
+        assertEquals(null, q.poll());
+        assertEquals(null, q.peek());
+        Random random = new Random(42);
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            int value = random.nextInt(500);
+            q.add(value);
+            expected.add(value);
+        }
+        Collections.sort(expected);
+        for (int value : expected) {
+            assertEquals(value, (int) q.peek());
+            assertEquals(value, (int) q.poll());
+        }
+        assertEquals(true, q.isEmpty());
+    }
+
+    @org.junit.jupiter.api.Test
+    void comparator() {
+        MyPriorityQueue<String> q = new MyPriorityQueue<>(Comparator.comparing(String::length));
+        q.addAll(Arrays.asList("ccc", "a", "dddd", "bb"));
+        assertEquals("a", q.poll());
+        assertEquals("bb", q.poll());
+        assertEquals("ccc", q.poll());
+        assertEquals("dddd", q.poll());
+        assertEquals(null, new MyPriorityQueue<Integer>().comparator());
+    }
+
+    @org.junit.jupiter.api.Test
+    void addAll() {
+        MyPriorityQueue<Integer> q = new MyPriorityQueue<>(2);
+        // heapify into an empty queue
+        q.addAll(Arrays.asList(9, 3, 7, 1, 8, 2, 6));
+        assertEquals(7, q.size());
+        assertEquals(1, (int) q.peek());
+        // sifting a small batch into a bigger queue
+        q.addAll(Arrays.asList(0, 5));
+        assertEquals(9, q.size());
+        assertEquals(Arrays.asList(0, 1, 2, 3, 5, 6, 7, 8, 9), q.pollN(100));
+        assertEquals(false, q.addAll(Collections.emptyList()));
+        assertThrows(NullPointerException.class, () -> q.addAll(Arrays.asList(1, null)));
+        assertThrows(IllegalArgumentException.class, () -> q.addAll(q));
+
+        // heapify of a single element has no parent to start from
+        MyPriorityQueue<Integer> single = new MyPriorityQueue<>();
+        assertEquals(true, single.addAll(Collections.singletonList(5)));
+        assertEquals(1, single.size());
+        assertEquals(5, (int) single.poll());
+    }
+
+    @org.junit.jupiter.api.Test
+    void pollN() {
+        MyPriorityQueue<Integer> q = new MyPriorityQueue<>();
+        for (int i = 20; i > 0; i--) q.add(i);
+        assertEquals(Arrays.asList(1, 2, 3), q.pollN(3));
+        assertEquals(17, q.size());
+        assertEquals(Collections.emptyList(), q.pollN(0));
+        List<Integer> rest = q.pollN(17);
+        assertEquals(17, rest.size());
+        for (int i = 0; i < 17; i++) assertEquals(i + 4, (int) rest.get(i));
+        assertEquals(true, q.isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> q.pollN(-1));
+    }
+
+    @org.junit.jupiter.api.Test
+    void removeObject() {
+        MyPriorityQueue<Integer> q = new MyPriorityQueue<>();
+        for (int i = 1; i <= 30; i++) q.add(i);
+        assertEquals(true, q.remove(1));
+        assertEquals(true, q.remove(17));
+        assertEquals(true, q.remove(30));
+        assertEquals(false, q.remove(100));
+        assertEquals(false, q.remove(null));
+        assertEquals(false, q.contains(17));
+        assertEquals(true, q.contains(18));
+        int previous = 0;
+        while (!q.isEmpty()) {
+            int value = q.poll();
+            assertEquals(true, value > previous);
+            previous = value;
+        }
+    }
+
+    @org.junit.jupiter.api.Test
+    void nulls() {
+        MyPriorityQueue<Integer> q = new MyPriorityQueue<>();
+        assertThrows(NullPointerException.class, () -> q.add(null));
+        assertThrows(NoSuchElementException.class, q::remove);
+        assertThrows(NoSuchElementException.class, q::element);
+    }
+
+    @org.junit.jupiter.api.Test
+    void toArrayAndIterator() {
+        MyPriorityQueue<Integer> q = new MyPriorityQueue<>();
+        q.addAll(Arrays.asList(4, 2, 3, 1));
+        Object[] arr = q.toArray();
+        Integer[] typed = q.toArray(new Integer[0]);
+        Arrays.sort(arr);
+        Arrays.sort(typed);
+        assertArrayEquals(new Object[]{1, 2, 3, 4}, arr);
+        assertArrayEquals(new Integer[]{1, 2, 3, 4}, typed);
+        int sum = 0;
+        for (int i : q) sum += i;
+        assertEquals(10, sum);
+        q.clear();
+        assertEquals(0, q.size());
+        assertEquals("{}", q.toString());
+    }
+
+    @org.junit.jupiter.api.Test
+    void iteratorRemove() {
+        Random random = new Random(42);
+        for (int round = 0; round < 100; round++) {
+            MyPriorityQueue<Integer> q = new MyPriorityQueue<>();
+            List<Integer> expected = new ArrayList<>();
+            for (int i = 0; i < 50; i++) q.add(random.nextInt(1000) * 2 + i % 2);
+            List<Integer> seen = new ArrayList<>();
+            for (Iterator<Integer> it = q.iterator(); it.hasNext(); ) {
+                int value = it.next();
+                seen.add(value);
+                // removing may move the last element above the iterator, it must still be seen once
+                if (value % 2 == 0) it.remove();
+                else expected.add(value);
+            }
+            assertEquals(50, seen.size());
+            Collections.sort(expected);
+            assertEquals(expected, q.pollN(100));
+        }
+        Iterator<Integer> it = new MyPriorityQueue<Integer>().iterator();
+        assertThrows(IllegalStateException.class, it::remove);
+    }
+
+    @org.junit.jupiter.api.Test
+    void bulkRemove() {
+        MyPriorityQueue<Integer> q = new MyPriorityQueue<>();
+        for (int i = 30; i > 0; i--) q.add(i);
+        assertEquals(true, q.removeIf(i -> i % 3 == 0));
+        assertEquals(false, q.removeIf(i -> i > 100));
+        assertEquals(true, q.removeAll(Arrays.asList(1, 2, 29)));
+        assertEquals(true, q.retainAll(Arrays.asList(4, 5, 7, 28, 100)));
+        assertEquals(Arrays.asList(4, 5, 7, 28), q.pollN(100));
+
+        // the elements the filter has not seen when it throws stay in the queue
+        q.addAll(Arrays.asList(5, 4, 3, 2, 1));
+        assertThrows(IllegalStateException.class, () -> q.removeIf(i -> {
+            if (i == 3) throw new IllegalStateException();
+            return true;
+        }));
+        assertEquals(true, q.contains(3));
+        int previous = 0;
+        while (!q.isEmpty()) {
+            int value = q.poll();
+            assertEquals(true, value > previous);
+            previous = value;
+        }
+    }
+
+    @org.junit.jupiter.api.Test
+    void notComparable() {
+        MyPriorityQueue<Object> q = new MyPriorityQueue<>();
+        assertThrows(ClassCastException.class, () -> q.add(new Object()));
+        assertThrows(ClassCastException.class, () -> q.addAll(Collections.singletonList(new Object())));
+        assertEquals(0, q.size());
+        // a comparator decides on its own what it accepts
+        MyPriorityQueue<Object> withComparator = new MyPriorityQueue<>(Comparator.comparing(Object::hashCode));
+        assertEquals(true, withComparator.add(new Object()));
+    }
+}
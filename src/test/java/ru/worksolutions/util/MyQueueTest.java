@@ -1,6 +1,9 @@
 package ru.worksolutions.util;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -201,4 +204,38 @@ class MyQueueTest {
         assertEquals(1, (int)q.remove());
         assertEquals(2, (int)q.element());
     }
-}
\ No newline at end of file
+
+    @org.junit.jupiter.api.Test
+    void releasesRemovedElements() {
+        MyQueue<Integer> q = new MyQueue<>(5);
+        q.addAll(Arrays.asList(1, 2, 3, 4, 5));
+        q.remove();
+        q.add(6); // wraps around the end of the buffer
+        q.remove((Object) 4);
+        q.remove((Object) 6);
+        assertEquals("{2, 3, 5}", q.toString());
+        assertEquals(Arrays.asList(null, 2, 3, 5, null), Arrays.asList(q.buffer));
+        q.clear();
+        for (Object o : q.buffer) assertEquals(null, o);
+    }
+
+    @org.junit.jupiter.api.Test
+    void iteratorRemove() {
+        MyQueue<Integer> q = new MyQueue<>(5);
+        q.addAll(Arrays.asList(0, 0, 1, 2, 3));
+        q.remove();
+        q.remove();
+        q.addAll(Arrays.asList(4, 5)); // wraps around the end of the buffer
+        Iterator<Integer> it = q.iterator();
+        assertThrows(IllegalStateException.class, it::remove);
+        List<Integer> seen = new ArrayList<>();
+        while (it.hasNext()) {
+            int value = it.next();
+            seen.add(value);
+            if (value != 3) it.remove();
+        }
+        assertThrows(IllegalStateException.class, it::remove);
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5), seen);
+        assertEquals("{3}", q.toString());
+    }
+}
@@ -0,0 +1,81 @@
+package ru.worksolutions.util;
+
+import java.util.Random;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A rough comparison of scheduling and expiring timers with {@link MyTimingWheel} and with
+ * {@link ScheduledThreadPoolExecutor}. It is not run as a part of the test suite; start it
+ * manually with an optional number of timers as the first argument (1 000 000 by default),
+ * e.g. with {@code -Xmx4g} and {@code 10000000}.
+ * <p>
+ * Delays are spread over one second. The wheel is driven by a fake clock that jumps straight
+ * to the end, so only the cost of the data structure is measured; the executor has to wait
+ * for the delays in real time, so its wait is measured separately from the scheduling.
+ */
+public class MyTimingWheelBenchmark {
+
+    private static final int ROUNDS = 3;
+    private static final long SPREAD_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    public static void main(String[] args) throws InterruptedException {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        long[] delays = new long[n];
+        Random random = new Random(42);
+        for (int i = 0; i < n; i++) delays[i] = (long) (random.nextDouble() * SPREAD_NANOS);
+
+        for (int round = 1; round <= ROUNDS; round++) {
+            System.out.println("round " + round + ", n = " + n);
+            wheel(delays);
+            executor(delays);
+        }
+    }
+
+    private static void wheel(long[] delays) {
+        long[] now = {0};
+        MyTimingWheel wheel = new MyTimingWheel(1, TimeUnit.MILLISECONDS, () -> now[0]);
+        LongAdder fired = new LongAdder();
+        Runnable task = fired::increment;
+
+        long start = System.nanoTime();
+        for (long delay : delays) wheel.schedule(task, delay, TimeUnit.NANOSECONDS);
+        long scheduled = System.nanoTime();
+        now[0] = SPREAD_NANOS + TimeUnit.MILLISECONDS.toNanos(1);
+        wheel.advance();
+        long expired = System.nanoTime();
+
+        check(fired, delays.length);
+        report("MyTimingWheel              ", scheduled - start, expired - scheduled);
+    }
+
+    private static void executor(long[] delays) throws InterruptedException {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1);
+        CountDownLatch latch = new CountDownLatch(delays.length);
+        LongAdder fired = new LongAdder();
+        Runnable task = () -> {
+            fired.increment();
+            latch.countDown();
+        };
+
+        long start = System.nanoTime();
+        for (long delay : delays) executor.schedule(task, delay, TimeUnit.NANOSECONDS);
+        long scheduled = System.nanoTime();
+        latch.await();
+        long expired = System.nanoTime();
+        executor.shutdown();
+
+        check(fired, delays.length);
+        report("ScheduledThreadPoolExecutor", scheduled - start, expired - scheduled);
+    }
+
+    private static void check(LongAdder fired, int expected) {
+        if (fired.sum() != expected)
+            throw new IllegalStateException("fired " + fired.sum() + " of " + expected);
+    }
+
+    private static void report(String name, long scheduleNanos, long expireNanos) {
+        System.out.printf("  %s schedule %6d ms, expire %6d ms%n", name,
+                scheduleNanos / 1_000_000, expireNanos / 1_000_000);
+    }
+}
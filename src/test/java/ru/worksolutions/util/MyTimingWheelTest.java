@@ -0,0 +1,154 @@
+package ru.worksolutions.util;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings("SimplifiableJUnitAssertion")
+class MyTimingWheelTest {
+
+    private long now;
+    private final List<Long> fired = new ArrayList<>();
+
+    private MyTimingWheel newWheel() {
+        // one tick is one nanosecond of the fake clock
+        return new MyTimingWheel(1, TimeUnit.NANOSECONDS, () -> now);
+    }
+
+    private void scheduleAt(MyTimingWheel wheel, long delay) {
+        wheel.schedule(() -> fired.add(delay), delay, TimeUnit.NANOSECONDS);
+    }
+
+    @org.junit.jupiter.api.Test
+    void firesOnTime() {
+        MyTimingWheel wheel = newWheel();
+        scheduleAt(wheel, 3);
+        scheduleAt(wheel, 1);
+        scheduleAt(wheel, 3);
+        assertEquals(3, wheel.pending());
+        now = 2;
+        assertEquals(1, wheel.advance());
+        assertEquals(Collections.singletonList(1L), fired);
+        now = 3;
+        assertEquals(2, wheel.advance());
+        assertEquals(Arrays.asList(1L, 3L, 3L), fired);
+        assertEquals(0, wheel.pending());
+        assertEquals(0, wheel.advance());
+    }
+
+    @org.junit.jupiter.api.Test
+    void cascadesThroughLevels() {
+        MyTimingWheel wheel = newWheel();
+        long[] delays = {0, 63, 64, 65, 4095, 4096, 4097, 262_143, 262_144, 1_000_000, 5_000_000};
+        for (long delay : delays) scheduleAt(wheel, delay);
+        assertEquals(delays.length, wheel.pending());
+        for (long delay : delays) {
+            now = Math.max(1, delay) - 1;
+            wheel.advance();
+            assertEquals(false, fired.contains(delay), "fired too early: " + delay);
+            now = Math.max(1, delay);
+            wheel.advance();
+            assertEquals(true, fired.contains(delay), "not fired: " + delay);
+        }
+        // delay 0 is run on the next tick, the rest in order of their deadlines
+        assertEquals(Arrays.asList(0L, 63L, 64L, 65L, 4095L, 4096L, 4097L, 262_143L, 262_144L, 1_000_000L, 5_000_000L),
+                fired);
+        assertEquals(0, wheel.pending());
+    }
+
+    @org.junit.jupiter.api.Test
+    void schedulesRelativeToClock() {
+        MyTimingWheel wheel = newWheel();
+        now = 1000;
+        // the wheel has not been advanced yet, the delay still counts from the clock
+        scheduleAt(wheel, 10);
+        now = 1009;
+        assertEquals(0, wheel.advance());
+        now = 1010;
+        assertEquals(1, wheel.advance());
+        assertEquals(Collections.singletonList(10L), fired);
+    }
+
+    @org.junit.jupiter.api.Test
+    void roundsUpToTick() {
+        MyTimingWheel wheel = new MyTimingWheel(10, TimeUnit.NANOSECONDS, () -> now);
+        scheduleAt(wheel, 15);
+        now = 19;
+        assertEquals(0, wheel.advance());
+        now = 20;
+        assertEquals(1, wheel.advance());
+    }
+
+    @org.junit.jupiter.api.Test
+    void cancel() {
+        MyTimingWheel wheel = newWheel();
+        scheduleAt(wheel, 5);
+        MyTimingWheel.Timeout timeout = wheel.schedule(() -> fired.add(-1L), 5000, TimeUnit.NANOSECONDS);
+        assertEquals(2, wheel.pending());
+        assertEquals(true, timeout.cancel());
+        assertEquals(false, timeout.cancel());
+        assertEquals(true, timeout.isCancelled());
+        assertEquals(1, wheel.pending());
+        now = 10_000;
+        assertEquals(1, wheel.advance());
+        assertEquals(Collections.singletonList(5L), fired);
+        assertEquals(0, wheel.pending());
+
+        MyTimingWheel.Timeout expired = wheel.schedule(() -> { }, 1, TimeUnit.NANOSECONDS);
+        now++;
+        wheel.advance();
+        assertEquals(true, expired.isExpired());
+        assertEquals(false, expired.cancel());
+    }
+
+    @org.junit.jupiter.api.Test
+    void releasesDrainedTimers() {
+        MyTimingWheel wheel = newWheel();
+        scheduleAt(wheel, 1);
+        scheduleAt(wheel, 100);
+        wheel.schedule(() -> fired.add(-1L), 100, TimeUnit.NANOSECONDS).cancel();
+        now = 100;
+        assertEquals(2, wheel.advance());
+        // neither the buckets nor the spare one keep the fired, cascaded or cancelled timers
+        for (MyQueue<MyTimingWheel.Timeout>[] level : wheel.buckets) {
+            for (MyQueue<MyTimingWheel.Timeout> bucket : level) {
+                if (bucket == null) continue;
+                for (Object o : bucket.buffer) assertEquals(null, o);
+            }
+        }
+        for (Object o : wheel.spare.buffer) assertEquals(null, o);
+    }
+
+    @org.junit.jupiter.api.Test
+    void tasksCanSchedule() {
+        MyTimingWheel wheel = newWheel();
+        wheel.schedule(() -> scheduleAt(wheel, 100), 64, TimeUnit.NANOSECONDS);
+        now = 64;
+        assertEquals(1, wheel.advance());
+        now = 163;
+        assertEquals(0, wheel.advance());
+        now = 164;
+        assertEquals(1, wheel.advance());
+        assertEquals(Collections.singletonList(100L), fired);
+
+        wheel.schedule(wheel::advance, 1, TimeUnit.NANOSECONDS);
+        now = 165;
+        assertThrows(IllegalStateException.class, wheel::advance);
+    }
+
+    @org.junit.jupiter.api.Test
+    void failingTask() {
+        MyTimingWheel wheel = newWheel();
+        wheel.schedule(() -> {
+            throw new IllegalStateException("first");
+        }, 1, TimeUnit.NANOSECONDS);
+        scheduleAt(wheel, 1);
+        now = 1;
+        IllegalStateException e = assertThrows(IllegalStateException.class, wheel::advance);
+        assertEquals("first", e.getMessage());
+        // the other task of the same tick has still been run
+        assertEquals(Collections.singletonList(1L), fired);
+        assertEquals(0, wheel.pending());
+    }
+}